@@ -0,0 +1,57 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.*;
+import com.microsoft.playwright.options.WaitUntilState;
+import org.testng.SkipException;
+import org.testng.annotations.*;
+import java.util.Arrays;
+
+public class ApiLatencyTests extends BaseTest {
+
+    private static final int ITERATIONS = Integer.getInteger("tinyflix.bench.iterations", 20);
+
+    @DataProvider(name = "backendLatencies")
+    public Object[][] backendLatencies() {
+        return Arrays.stream(System.getProperty("tinyflix.bench.apiLatencies", "0,50,200,800").split(","))
+                .map(latency -> new Object[]{ApiServer.Latency.parse(latency)})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "backendLatencies",
+            description = "Catalog and comment latency in the UI should track the API's latency plus a fixed overhead")
+    public void testUiLatencyTracksBackend(ApiServer.Latency backend) {
+        ApiServer api = ApiServer.fromSystemProperties();
+        try {
+            api.endpoint(ApiServer.Endpoint.CATALOG).latency(backend);
+            api.endpoint(ApiServer.Endpoint.COMMENTS).latency(backend);
+            api.route(page());
+            String variant = "api=" + backend;
+            LatencyStats catalog = new LatencyStats("api", "navigate to first card");
+            LatencyStats comments = new LatencyStats("api", "open video to first comment");
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                page().navigate(baseUrl, new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT));
+                page().waitForSelector(".video-card");
+                catalog.add((System.nanoTime() - start) / 1e6);
+
+                start = System.nanoTime();
+                page().locator("text=React Basics").first().click();
+                page().waitForSelector(".comment");
+                comments.add((System.nanoTime() - start) / 1e6);
+            }
+            if (api.requests(ApiServer.Endpoint.CATALOG) == 0 && api.requests(ApiServer.Endpoint.COMMENTS) == 0) {
+                throw new SkipException("The app did not call /api/videos or its comments endpoint, so the API's latency does not reach the UI");
+            }
+
+            catalog.report(variant);
+            comments.report(variant);
+            System.out.println(api);
+            System.out.println(String.format(java.util.Locale.ROOT,
+                    "api %s: UI adds %.0f ms to catalog loads and %.0f ms to comment loads at p50",
+                    backend, catalog.percentile(50) - backend.median(), comments.percentile(50) - backend.median()));
+        } finally {
+            api.close();
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package com.tinyflix.tests;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Route;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-JVM stand-in for the TinyFlix API, so tests and benchmarks can control how the backend behaves
+ * instead of depending on whatever the dev server does.
+ *
+ * Serves the catalog ({@link SyntheticCatalog}), comment threads ({@link SyntheticComments}) with likes
+ * and replies, and bookmarks, keeping what tests post in memory. Every {@link Endpoint} has its own
+ * {@link Behavior}: a latency distribution, an error rate and a limit on requests served at once,
+ * beyond which requests queue. Latencies and errors are drawn from seeded generators, so a run with
+ * the same settings sees the same sequence. All of it can be changed while a test runs.
+ *
+ * {@link #route(Page)} sends the page's /api requests here. Configure the defaults with
+ * -Dtinyflix.api.latency (for every endpoint) or -Dtinyflix.api.&lt;endpoint&gt;.latency, e.g.
+ * -Dtinyflix.api.add-comment.latency=lognormal:80:400, and the matching .errorRate and .concurrency;
+ * -Dtinyflix.api.seed, -Dtinyflix.api.catalogSize and -Dtinyflix.api.comments set up the data.
+ */
+public final class ApiServer implements AutoCloseable {
+
+    /**
+     * The API's endpoints; ids in paths are video, comment and bookmark ids.
+     */
+    public enum Endpoint {
+        CATALOG("GET", "/api/videos"),
+        COMMENTS("GET", "/api/videos/([^/]+)/comments"),
+        ADD_COMMENT("POST", "/api/videos/([^/]+)/comments"),
+        LIKE("POST", "/api/videos/([^/]+)/comments/([^/]+)/like"),
+        REPLY("POST", "/api/videos/([^/]+)/comments/([^/]+)/replies"),
+        BOOKMARKS("GET", "/api/videos/([^/]+)/bookmarks"),
+        ADD_BOOKMARK("POST", "/api/videos/([^/]+)/bookmarks"),
+        DELETE_BOOKMARK("DELETE", "/api/videos/([^/]+)/bookmarks/([^/]+)");
+
+        private final String method;
+        private final Pattern path;
+
+        Endpoint(String method, String path) {
+            this.method = method;
+            this.path = Pattern.compile(path + "/?");
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private static final long SEED = Long.getLong("tinyflix.api.seed", 42);
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final Map<Endpoint, Behavior> behaviors = new EnumMap<>(Endpoint.class);
+
+    private final String catalog;
+    private final int commentsPerVideo;
+    private final int repliesPerComment;
+    private final Map<String, JsonArray> commentsByVideo = new ConcurrentHashMap<>();
+    private final Map<String, JsonArray> bookmarksByVideo = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1_000_000);
+
+    private ApiServer(int catalogSize, int commentsPerVideo, int repliesPerComment) throws IOException {
+        this.catalog = SyntheticCatalog.json(catalogSize);
+        this.commentsPerVideo = commentsPerVideo;
+        this.repliesPerComment = repliesPerComment;
+        for (Endpoint endpoint : Endpoint.values()) {
+            behaviors.put(endpoint, new Behavior(new Random(SEED + endpoint.ordinal())));
+        }
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "tinyflix-api-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(workers);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts a server with the configured data and endpoint behaviour.
+     */
+    public static ApiServer fromSystemProperties() {
+        ApiServer api = start(Integer.getInteger("tinyflix.api.catalogSize", 100),
+                Integer.getInteger("tinyflix.api.comments", 5), Integer.getInteger("tinyflix.api.replies", 1));
+        for (Endpoint endpoint : Endpoint.values()) {
+            Behavior behavior = api.endpoint(endpoint);
+            String latency = System.getProperty("tinyflix.api." + endpoint + ".latency", System.getProperty("tinyflix.api.latency"));
+            if (latency != null) {
+                behavior.latency(Latency.parse(latency));
+            }
+            String errorRate = System.getProperty("tinyflix.api." + endpoint + ".errorRate", System.getProperty("tinyflix.api.errorRate"));
+            if (errorRate != null) {
+                behavior.errorRate(Double.parseDouble(errorRate));
+            }
+            String concurrency = System.getProperty("tinyflix.api." + endpoint + ".concurrency", System.getProperty("tinyflix.api.concurrency"));
+            if (concurrency != null) {
+                behavior.concurrency(Integer.parseInt(concurrency));
+            }
+        }
+        return api;
+    }
+
+    /**
+     * Starts an instant, error-free server with a catalog of {@code catalogSize} videos and
+     * {@code commentsPerVideo} comments with {@code repliesPerComment} replies each on every video.
+     */
+    public static ApiServer start(int catalogSize, int commentsPerVideo, int repliesPerComment) {
+        try {
+            return new ApiServer(catalogSize, commentsPerVideo, repliesPerComment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start the API server", e);
+        }
+    }
+
+    /**
+     * Sends every /api request the page makes from now on to this server.
+     */
+    public void route(Page page) {
+        page.route("**/api/**", route -> route.resume(new Route.ResumeOptions().setUrl(url(route.request().url()))));
+    }
+
+    /**
+     * This server's URL for the path and query of {@code originalUrl}.
+     */
+    public String url(String originalUrl) {
+        URI uri = URI.create(originalUrl);
+        return "http://127.0.0.1:" + server.getAddress().getPort() + uri.getRawPath()
+                + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+    }
+
+    /**
+     * How {@code endpoint} behaves; change it at any time.
+     */
+    public Behavior endpoint(Endpoint endpoint) {
+        return behaviors.get(endpoint);
+    }
+
+    /**
+     * The behaviour of every endpoint that is not instant and error-free, e.g.
+     * "comments=lognormal:80:400,errors=5%,concurrency=2", or "instant" if none.
+     */
+    public String conditions() {
+        String conditions = behaviors.entrySet().stream()
+                .filter(entry -> !entry.getValue().isDefault())
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(";"));
+        return conditions.isEmpty() ? "instant" : conditions;
+    }
+
+    public int requests(Endpoint endpoint) {
+        return behaviors.get(endpoint).requests.intValue();
+    }
+
+    public int errors(Endpoint endpoint) {
+        return behaviors.get(endpoint).errors.intValue();
+    }
+
+    /**
+     * Total time requests to {@code endpoint} spent waiting for a free slot, in milliseconds.
+     */
+    public long queuedMs(Endpoint endpoint) {
+        return behaviors.get(endpoint).queuedMs.longValue();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "api server: " + behaviors.entrySet().stream()
+                .filter(entry -> entry.getValue().requests.intValue() > 0)
+                .map(entry -> entry.getKey() + " " + entry.getValue().requests + " requests, "
+                        + entry.getValue().errors + " errors, " + entry.getValue().queuedMs + " ms queued")
+                .collect(Collectors.joining("; "));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if ("OPTIONS".equals(method)) {
+                respond(exchange, 204, null);
+                return;
+            }
+            for (Endpoint endpoint : Endpoint.values()) {
+                Matcher match = endpoint.path.matcher(path);
+                if (endpoint.method.equals(method) && match.matches()) {
+                    serve(exchange, endpoint, match);
+                    return;
+                }
+            }
+            respond(exchange, 404, "{\"error\":\"No such endpoint: " + method + " " + path + "\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void serve(HttpExchange exchange, Endpoint endpoint, Matcher match) throws IOException {
+        Behavior behavior = behaviors.get(endpoint);
+        behavior.requests.increment();
+        Semaphore slots = behavior.slots;
+        long queuedFrom = System.nanoTime();
+        if (slots != null) {
+            slots.acquireUninterruptibly();
+        }
+        try {
+            behavior.queuedMs.add((System.nanoTime() - queuedFrom) / 1_000_000);
+            long latencyMs = Math.round(behavior.sampleLatency());
+            if (latencyMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+            }
+            if (behavior.failsNext()) {
+                behavior.errors.increment();
+                respond(exchange, behavior.errorStatus, "{\"error\":\"Injected " + behavior.errorStatus + " from " + endpoint + "\"}");
+                return;
+            }
+            respond(exchange, endpoint.method.equals("POST") ? 201 : 200, answer(endpoint, match, readBody(exchange)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (slots != null) {
+                slots.release();
+            }
+        }
+    }
+
+    private String answer(Endpoint endpoint, Matcher match, JsonObject body) {
+        switch (endpoint) {
+            case CATALOG:
+                return catalog;
+            case COMMENTS:
+                return comments(match.group(1)).toString();
+            case ADD_COMMENT: {
+                JsonObject comment = newItem(body);
+                comment.addProperty("likes", 0);
+                comment.add("replies", new JsonArray());
+                JsonArray comments = comments(match.group(1));
+                synchronized (comments) {
+                    comments.add(comment);
+                }
+                return comment.toString();
+            }
+            case LIKE: {
+                // Replies are liked through the same endpoint, with the reply's id
+                JsonObject comment = findCommentOrReply(comments(match.group(1)), match.group(2));
+                if (comment == null) {
+                    return "{}";
+                }
+                synchronized (comment) {
+                    comment.addProperty("likes", comment.get("likes").getAsInt() + 1);
+                }
+                return comment.toString();
+            }
+            case REPLY: {
+                JsonObject comment = find(comments(match.group(1)), match.group(2));
+                JsonObject reply = newItem(body);
+                reply.addProperty("likes", 0);
+                if (comment != null) {
+                    synchronized (comment) {
+                        comment.getAsJsonArray("replies").add(reply);
+                    }
+                }
+                return reply.toString();
+            }
+            case BOOKMARKS:
+                return bookmarks(match.group(1)).toString();
+            case ADD_BOOKMARK: {
+                JsonObject bookmark = newItem(body);
+                JsonArray bookmarks = bookmarks(match.group(1));
+                synchronized (bookmarks) {
+                    bookmarks.add(bookmark);
+                }
+                return bookmark.toString();
+            }
+            case DELETE_BOOKMARK: {
+                JsonArray bookmarks = bookmarks(match.group(1));
+                synchronized (bookmarks) {
+                    JsonObject bookmark = find(bookmarks, match.group(2));
+                    if (bookmark != null) {
+                        bookmarks.remove(bookmark);
+                    }
+                }
+                return "{}";
+            }
+            default:
+                throw new IllegalStateException("Unhandled endpoint " + endpoint);
+        }
+    }
+
+    private JsonArray comments(String videoId) {
+        return commentsByVideo.computeIfAbsent(videoId,
+                id -> JsonParser.parseString(SyntheticComments.json(commentsPerVideo, repliesPerComment)).getAsJsonArray());
+    }
+
+    private JsonArray bookmarks(String videoId) {
+        return bookmarksByVideo.computeIfAbsent(videoId, id -> new JsonArray());
+    }
+
+    private static JsonObject findCommentOrReply(JsonArray comments, String id) {
+        JsonObject comment = find(comments, id);
+        if (comment != null) {
+            return comment;
+        }
+        synchronized (comments) {
+            for (JsonElement parent : comments) {
+                JsonObject reply = null;
+                synchronized (parent) {
+                    JsonArray replies = parent.getAsJsonObject().getAsJsonArray("replies");
+                    if (replies != null) {
+                        reply = find(replies, id);
+                    }
+                }
+                if (reply != null) {
+                    return reply;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static JsonObject find(JsonArray items, String id) {
+        synchronized (items) {
+            for (JsonElement item : items) {
+                if (item.getAsJsonObject().get("id").getAsString().equals(id)) {
+                    return item.getAsJsonObject();
+                }
+            }
+        }
+        return null;
+    }
+
+    // What the client posted, with a server-assigned id and timestamp
+    private JsonObject newItem(JsonObject body) {
+        JsonObject item = body.deepCopy();
+        item.addProperty("id", nextId.incrementAndGet());
+        item.addProperty("timestamp", Instant.now().toString());
+        return item;
+    }
+
+    private static JsonObject readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (text.startsWith("{")) {
+                return JsonParser.parseString(text).getAsJsonObject();
+            }
+            return new JsonObject();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "*");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, DELETE, OPTIONS");
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * How one endpoint responds: how long it takes, how often it fails and how many requests it serves
+     * at once.
+     */
+    public static final class Behavior {
+
+        private final Random random;
+        private volatile Latency latency = Latency.fixed(0);
+        private volatile double errorRate;
+        private volatile int errorStatus = 500;
+        private volatile Semaphore slots;
+        private volatile int concurrency;
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder queuedMs = new LongAdder();
+
+        private Behavior(Random random) {
+            this.random = random;
+        }
+
+        public Behavior latency(Latency latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Fails this fraction of requests, drawn at random, with {@code status}.
+         */
+        public Behavior errorRate(double rate, int status) {
+            this.errorRate = Math.max(0, Math.min(1, rate));
+            this.errorStatus = status;
+            return this;
+        }
+
+        public Behavior errorRate(double rate) {
+            return errorRate(rate, 500);
+        }
+
+        /**
+         * Serves at most {@code limit} requests at once and queues the rest; 0 removes the limit.
+         */
+        public Behavior concurrency(int limit) {
+            this.concurrency = Math.max(0, limit);
+            this.slots = limit > 0 ? new Semaphore(limit, true) : null;
+            return this;
+        }
+
+        private double sampleLatency() {
+            synchronized (random) {
+                return latency.sample(random);
+            }
+        }
+
+        private boolean failsNext() {
+            if (errorRate == 0) {
+                return false;
+            }
+            synchronized (random) {
+                return random.nextDouble() < errorRate;
+            }
+        }
+
+        private boolean isDefault() {
+            return latency.isZero() && errorRate == 0 && concurrency == 0;
+        }
+
+        @Override
+        public String toString() {
+            return latency + (errorRate > 0 ? String.format(Locale.ROOT, ",errors=%.0f%%/%d", errorRate * 100, errorStatus) : "")
+                    + (concurrency > 0 ? ",concurrency=" + concurrency : "");
+        }
+    }
+
+    /**
+     * A distribution of response times in milliseconds.
+     */
+    public static final class Latency {
+
+        private final String kind;
+        private final double a;
+        private final double b;
+
+        private Latency(String kind, double a, double b) {
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+        }
+
+        public static Latency fixed(double ms) {
+            return new Latency("fixed", ms, ms);
+        }
+
+        public static Latency uniform(double minMs, double maxMs) {
+            return new Latency("uniform", minMs, maxMs);
+        }
+
+        /**
+         * A long-tailed distribution with the given median and 95th percentile, the usual shape of
+         * real service latencies.
+         */
+        public static Latency logNormal(double medianMs, double p95Ms) {
+            return new Latency("lognormal", medianMs, Math.max(medianMs, p95Ms));
+        }
+
+        /**
+         * Parses "50" or "fixed:50", "uniform:20:80" or "lognormal:80:400" (median and p95).
+         */
+        public static Latency parse(String spec) {
+            String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+            switch (parts[0]) {
+                case "fixed":
+                    return fixed(Double.parseDouble(parts[1]));
+                case "uniform":
+                    return uniform(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "lognormal":
+                    return logNormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    return fixed(Double.parseDouble(parts[0]));
+            }
+        }
+
+        double sample(Random random) {
+            switch (kind) {
+                case "uniform":
+                    return a + random.nextDouble() * (b - a);
+                case "lognormal":
+                    // 1.645 standard deviations above the median is the 95th percentile
+                    double sigma = a > 0 ? Math.log(b / a) / 1.645 : 0;
+                    return a * Math.exp(sigma * random.nextGaussian());
+                default:
+                    return a;
+            }
+        }
+
+        public double median() {
+            return "uniform".equals(kind) ? (a + b) / 2 : a;
+        }
+
+        boolean isZero() {
+            return "fixed".equals(kind) && a == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "fixed".equals(kind) ? String.format(Locale.ROOT, "%.0fms", a)
+                    : String.format(Locale.ROOT, "%s:%.0f:%.0f", kind, a, b);
+        }
+    }
+}
@@ -1,73 +1,465 @@
 package com.tinyflix.tests;
 
 import com.microsoft.playwright.*;
-import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.assertions.LocatorAssertions;
+import com.microsoft.playwright.options.WaitUntilState;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
 import org.testng.annotations.*;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import static com.microsoft.playwright.assertions.PlaywrightAssertions.assertThat;
 import static org.testng.Assert.*;
 
 public class BaseTest {
-    
-    // Playwright objects
-    protected Playwright playwright;
-    protected Browser browser;
-    protected BrowserContext context;
-    protected Page page;
-    
+
+    // Browsers are leased from the suite-wide pool for one test method at a time; Playwright objects
+    // are not thread-safe, so the lease, context and page are held per worker thread
+    private static final ThreadLocal<BrowserPool.PooledBrowser> lease = new ThreadLocal<>();
+    private static final ThreadLocal<BrowserContext> context = new ThreadLocal<>();
+    private static final ThreadLocal<Page> page = new ThreadLocal<>();
+    private static final ThreadLocal<String> testName = new ThreadLocal<>();
+    private static final ThreadLocal<NetworkProfile> network = new ThreadLocal<>();
+    private static final ThreadLocal<DeviceProfile> device = new ThreadLocal<>();
+    // Precise coverage of the test's page and the functions collected so far, with -Dtinyflix.coverage=true
+    private static final ThreadLocal<CDPSession> coverageSession = new ThreadLocal<>();
+    private static final ThreadLocal<Map<String, Set<String>>> coverage = new ThreadLocal<>();
+    private static final ThreadLocal<FlightRecorder> recorder = new ThreadLocal<>();
+    // Whether the test asked for a virtual clock, which every context it switches to must get too
+    private static final ThreadLocal<Boolean> virtualClock = new ThreadLocal<>();
+
+    // Network conditions for tests whose <test> block has no "network" parameter
+    private static final NetworkProfile DEFAULT_NETWORK = NetworkProfile.named(System.getProperty("tinyflix.network"));
+    // Device for tests whose <test> block has no "device" parameter
+    private static final DeviceProfile DEFAULT_DEVICE = DeviceProfile.named(System.getProperty("tinyflix.device"));
+
+    // Checkpoints captured by openVideo(), shared by all worker threads. The first thread to need one
+    // captures it outside the map and the others wait for its future; a failed capture stays failed.
+    private static final Map<String, CompletableFuture<Checkpoint>> checkpoints = new ConcurrentHashMap<>();
+    private static final boolean CHECKPOINTS_ENABLED =
+            Boolean.parseBoolean(System.getProperty("tinyflix.checkpoints", "true"));
+
+    // Quiet window after the last DOM mutation before waitForDomToSettle() treats the page as settled
+    private static final int SETTLE_QUIET_MS = Integer.getInteger("tinyflix.wait.quietMs", 100);
+    // How often waitForCards() reads the cards again
+    private static final int CARDS_POLL_MS = 50;
+
+    // How navigateToApp() decides the app is ready, and how long it may take
+    private static final ReadinessStrategy READINESS = ReadinessStrategy.fromSystemProperties();
+    private static final double READINESS_TIMEOUT_MS = 30_000;
+
     // Application URL use your local host and correct port number
-    protected String baseUrl = "http://localhost:5173/";
-    
-    @BeforeClass
-    public void launchBrowser() {
-        playwright = Playwright.create();
-        browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
-                .setHeadless(true)
-                .setSlowMo(50));
+    protected final String baseUrl = "http://localhost:5173/";
+
+    protected Browser browser() {
+        return lease.get().browser();
+    }
+
+    protected BrowserContext context() {
+        ensureContext();
+        return context.get();
+    }
+
+    protected Page page() {
+        ensureContext();
+        return page.get();
+    }
+
+    /**
+     * The test's page if it has opened one, or null; unlike page(), this never creates a context.
+     */
+    protected Page currentPage() {
+        return page.get();
+    }
+
+    // The test's context is created when it is first used, so a test that starts with openVideo()
+    // forks its context from the checkpoint without opening a fresh one first
+    private void ensureContext() {
+        if (context.get() == null && lease.get() != null) {
+            startContext(browser().newContext(contextOptions()));
+        }
+    }
+
+    /**
+     * Class and method name of the test running on this thread, e.g. "CommentTests.testAddComment".
+     */
+    protected String testName() {
+        return testName.get();
+    }
+
+    /**
+     * The network conditions this test's pages are emulated under.
+     */
+    protected NetworkProfile networkProfile() {
+        return network.get();
+    }
+
+    /**
+     * The device this test's pages are emulated on.
+     */
+    protected DeviceProfile deviceProfile() {
+        return device.get();
+    }
 
+    /**
+     * Puts the page's timers, Date, performance.now() and media playback under the test's control from
+     * now on, in the current page and in every page the test loads later. Call it after openVideo(),
+     * since the app may need real timers to boot.
+     */
+    protected VirtualClock useVirtualClock() {
+        virtualClock.set(Boolean.TRUE);
+        context().addInitScript(VirtualClock.INSTALL_SCRIPT);
+        page().evaluate(VirtualClock.INSTALL_SCRIPT);
+        return new VirtualClock(this::page);
     }
-    
+
+    /**
+     * Whether a result over its performance target should fail the test: budgets are enforced and the
+     * test runs under conditions the targets are stated for.
+     */
+    protected boolean budgetsApply() {
+        return PerfLog.budgetsEnforced() && networkProfile().meetsTargets() && deviceProfile().meetsTargets();
+    }
+
+    /**
+     * The readiness strategy navigateToApp() waits for; override to use a different one for a class.
+     */
+    protected ReadinessStrategy readiness() {
+        return READINESS;
+    }
+
     @BeforeMethod
-    public void createContextAndPage() {
-        context = browser.newContext(new Browser.NewContextOptions()
-                .setViewportSize(1280, 720)
-                .setIgnoreHTTPSErrors(true));
-        
+    public void createContextAndPage(Method method, ITestContext testContext) {
+        testName.set(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        String networkParameter = testContext.getCurrentXmlTest().getParameter("network");
+        network.set(networkParameter != null ? NetworkProfile.named(networkParameter) : DEFAULT_NETWORK);
+        String deviceParameter = testContext.getCurrentXmlTest().getParameter("device");
+        device.set(deviceParameter != null ? DeviceProfile.named(deviceParameter) : DEFAULT_DEVICE);
+        PerfLog.setConditions("network=" + networkProfile() + ";device=" + deviceProfile());
+        if (CoverageRecorder.ENABLED) {
+            coverage.set(new TreeMap<>());
+        }
+        if (FlightRecorder.ENABLED) {
+            recorder.set(new FlightRecorder(testName()));
+        }
+        lease.set(BrowserPool.get().lease());
+        if (PerfTrace.ENABLED) {
+            PerfTrace.start(browser());
+        }
+    }
+
+    protected Browser.NewContextOptions contextOptions() {
+        return deviceProfile().configure(new Browser.NewContextOptions())
+                .setIgnoreHTTPSErrors(true);
+    }
+
+    private void startContext(BrowserContext newContext) {
         // Enable accessibility testing
-        context.setExtraHTTPHeaders(java.util.Map.of("X-Playwright-Accessibility", "true"));
-        
-        page = context.newPage();
+        newContext.setExtraHTTPHeaders(java.util.Map.of("X-Playwright-Accessibility", "true"));
+
+        // Observe Core Web Vitals from the first navigation on; WebVitalsListener reads them after the test
+        newContext.addInitScript(WebVitals.OBSERVER_SCRIPT);
+        if (virtualClock.get() != null) {
+            newContext.addInitScript(VirtualClock.INSTALL_SCRIPT);
+        }
+        routeArchive(newContext);
+
+        context.set(newContext);
+        page.set(newContext.newPage());
+        networkProfile().apply(newContext, page());
+        deviceProfile().apply(newContext, page());
+        if (CoverageRecorder.ENABLED) {
+            coverageSession.set(CoverageRecorder.start(newContext, page()));
+        }
+        if (recorder.get() != null) {
+            recorder.get().attach(newContext, page());
+        }
     }
-    
-    @AfterMethod
-    public void closeContext() {
-        if (context != null) {
-            context.close();
-            context = null;
-            page = null;
+
+    /**
+     * Records the app's requests to, or serves them from, the network archive when
+     * -Dtinyflix.replay is set.
+     */
+    private void routeArchive(BrowserContext target) {
+        if (NetworkArchive.MODE != NetworkArchive.Mode.OFF) {
+            NetworkArchive.get().install(target, baseUrl);
         }
     }
-    
-    @AfterClass
-    public void closeBrowser() {
-        if (browser != null) {
-            browser.close();
-            browser = null;
+
+    /**
+     * Adds what ran in the test's page to its coverage; call before closing the page's context.
+     */
+    private void collectCoverage() {
+        if (coverageSession.get() != null) {
+            CoverageRecorder.collect(coverageSession.get(), baseUrl, coverage.get());
+            coverageSession.remove();
         }
-        if (playwright != null) {
-            playwright.close();
-            playwright = null;
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void closeContext(ITestResult result) {
+        try {
+            if (testName() != null && result.getStatus() != ITestResult.SKIP) {
+                WaitStats.recordTestRun(testName());
+            }
+            // Write the failure's last moments while its page is still open for a final screenshot
+            if (recorder.get() != null) {
+                recorder.get().finish(result.getStatus() == ITestResult.FAILURE ? result.getThrowable() : null);
+            }
+            // Stop the trace while the test's pages are still open, so their last events are flushed
+            if (PerfTrace.ENABLED && lease.get() != null) {
+                PerfTrace.stop(browser(), testName());
+            }
+            if (CoverageRecorder.ENABLED && context.get() != null) {
+                collectCoverage();
+                CoverageRecorder.save(testName(), coverage.get());
+            }
+        } finally {
+            closeContextAndRelease();
         }
     }
+
+    private void closeContextAndRelease() {
+        try {
+            if (context.get() != null) {
+                context.get().close();
+            }
+        } finally {
+            context.remove();
+            page.remove();
+            testName.remove();
+            network.remove();
+            device.remove();
+            coverageSession.remove();
+            coverage.remove();
+            recorder.remove();
+            virtualClock.remove();
+            PerfLog.clearConditions();
+            if (lease.get() != null) {
+                BrowserPool.get().release(lease.get());
+                lease.remove();
+            }
+        }
+    }
+
+    @AfterSuite(alwaysRun = true)
+    public void closeBrowsers() {
+        BrowserPool.get().shutdown();
+        WaitStats.printSummary();
+        FlightRecorder.printSummary();
+        NetworkArchive.finish();
+    }
+
     protected void navigateToApp() {
-        page.navigate(baseUrl);
-        page.waitForLoadState(LoadState.NETWORKIDLE);
+        navigateToApp(page());
     }
 
     protected void selectVideo(String title) {
-        page.locator("text=" + title).first().click();
-        page.waitForSelector(".video-player");
+        selectVideo(page(), title);
+    }
+
+    /**
+     * Same end state as navigateToApp() followed by selectVideo(title), but forked from a checkpoint
+     * that is captured once per suite, so the prefix is not rebuilt in every test's fresh context.
+     * Run with -Dtinyflix.checkpoints=false to take the full prefix in every test instead. Under a
+     * throttled network profile the full prefix is always taken, since a fork serves the app from memory,
+     * and so it is when the checkpoint could not be captured. Either way the video opens in a new
+     * context, so nothing the test loaded before is in its HTTP or media cache.
+     */
+    protected void openVideo(String title) {
+        Checkpoint checkpoint = CHECKPOINTS_ENABLED && !networkProfile().isThrottled() ? videoCheckpoint(title) : null;
+        if (checkpoint == null) {
+            replaceContext(browser().newContext(contextOptions()));
+            navigateToApp();
+            selectVideo(title);
+            return;
+        }
+
+        if (recorder.get() != null) {
+            recorder.get().note("open \"" + title + "\" from a checkpoint");
+        }
+        replaceContext(checkpoint.fork(browser(), contextOptions()));
+        checkpoint.restore(page());
+    }
+
+    // Swaps the context the test has used so far, if any, for newContext
+    private void replaceContext(BrowserContext newContext) {
+        if (context.get() != null) {
+            collectCoverage();
+            context.get().close();
+        }
+        startContext(newContext);
+    }
+
+    /**
+     * The checkpoint after selecting {@code title}, captured by the first thread that asks for it, or
+     * null if capturing it failed and tests should take the full prefix instead.
+     */
+    private Checkpoint videoCheckpoint(String title) {
+        String key = "video:" + title + "@" + deviceProfile();
+        CompletableFuture<Checkpoint> pending = new CompletableFuture<>();
+        CompletableFuture<Checkpoint> existing = checkpoints.putIfAbsent(key, pending);
+        if (existing == null) {
+            try {
+                pending.complete(Checkpoint.capture(browser(), contextOptions(), this::routeArchive,
+                        capturePage -> {
+                            navigateToApp(capturePage);
+                            selectVideo(capturePage, title);
+                        },
+                        forkedPage -> selectVideo(forkedPage, title)));
+            } catch (RuntimeException | AssertionError e) {
+                // Waiting threads must always be woken, or they would block for the rest of the suite
+                System.out.println("Capturing checkpoint " + key + " failed, tests take the full prefix: "
+                        + String.valueOf(e.getMessage()).split("\n", 2)[0]);
+                pending.completeExceptionally(e);
+            }
+            existing = pending;
+        }
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    private void navigateToApp(Page target) {
+        long start = System.nanoTime();
+        target.navigate(baseUrl, new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT));
+        readiness().awaitReady(target, READINESS_TIMEOUT_MS);
+        long readyMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("[ready] " + testName() + ": " + readiness().describe() + " in " + readyMs + " ms"
+                + " (" + PerfLog.conditions() + ")");
+        PerfLog.append("readiness.csv", "test,strategy,ready_ms", java.util.Arrays.asList(testName(), readiness().describe(), readyMs));
+    }
+
+    protected void selectVideo(Page target, String title) {
+        target.locator("text=" + title).first().click();
+        target.waitForSelector(".video-player");
+    }
+
+    /**
+     * Waits until the page has gone a quiet window without DOM changes, e.g. after a search, filter or
+     * sort re-renders the video cards. Returns false if the page was still changing when the budget ran out.
+     */
+    protected boolean waitForDomToSettle(int budgetMs) {
+        return waitForDomToSettle(SETTLE_QUIET_MS, budgetMs);
+    }
+
+    /**
+     * Same as waitForDomToSettle(budgetMs) with a quiet window of {@code quietMs}, for changes whose
+     * end state the test cannot describe and that may come after a pause, e.g. a debounced re-render.
+     */
+    protected boolean waitForDomToSettle(int quietMs, int budgetMs) {
+        long start = System.nanoTime();
+        boolean settled = (Boolean) page().evaluate("([quietMs, budgetMs]) => new Promise(resolve => {\n" +
+                "  // Under the virtual clock the page's timers only run on a tick, so use the real ones\n" +
+                "  const { setTimeout, clearTimeout } = window.__tinyflixRealTimers || window;\n" +
+                "  let quietTimer;\n" +
+                "  const finish = settled => {\n" +
+                "    observer.disconnect();\n" +
+                "    clearTimeout(quietTimer);\n" +
+                "    clearTimeout(deadline);\n" +
+                "    resolve(settled);\n" +
+                "  };\n" +
+                "  const observer = new MutationObserver(() => {\n" +
+                "    clearTimeout(quietTimer);\n" +
+                "    quietTimer = setTimeout(() => finish(true), quietMs);\n" +
+                "  });\n" +
+                "  observer.observe(document.body, { childList: true, subtree: true, characterData: true });\n" +
+                "  quietTimer = setTimeout(() => finish(true), quietMs);\n" +
+                "  const deadline = setTimeout(() => finish(false), budgetMs);\n" +
+                "})", java.util.Arrays.asList(quietMs, budgetMs));
+        recordConditionWait("dom settled", start, settled);
+        return settled;
+    }
+
+    /**
+     * Waits until the video cards on the page satisfy {@code expected}, e.g. every card matching a search
+     * term once the list has re-rendered. Returns false if they still did not when the budget ran out.
+     */
+    protected boolean waitForCards(Predicate<List<VideoCard>> expected, int budgetMs) {
+        long start = System.nanoTime();
+        long deadline = start + budgetMs * 1_000_000L;
+        boolean reached = expected.test(VideoCard.snapshotAll(page()));
+        while (!reached && System.nanoTime() < deadline) {
+            page().waitForTimeout(CARDS_POLL_MS);
+            reached = expected.test(VideoCard.snapshotAll(page()));
+        }
+        recordConditionWait("cards matched", start, reached);
+        return reached;
+    }
+
+    /**
+     * Waits until the element's text differs from {@code previousText}, e.g. a like counter after a click.
+     * Returns false if the text had not changed when the budget ran out.
+     */
+    protected boolean waitForTextChange(Locator locator, String previousText, int budgetMs) {
+        long start = System.nanoTime();
+        boolean changed = true;
+        try {
+            assertThat(locator).not().hasText(previousText, new LocatorAssertions.HasTextOptions().setTimeout(budgetMs));
+        } catch (AssertionError e) {
+            changed = false;
+        }
+        recordConditionWait("text changed", start, changed);
+        return changed;
+    }
+
+    /**
+     * Waits until the locator matches exactly {@code expectedCount} elements.
+     * Returns false if the count was still different when the budget ran out.
+     */
+    protected boolean waitForCount(Locator locator, int expectedCount, int budgetMs) {
+        long start = System.nanoTime();
+        boolean reached = true;
+        try {
+            assertThat(locator).hasCount(expectedCount, new LocatorAssertions.HasCountOptions().setTimeout(budgetMs));
+        } catch (AssertionError e) {
+            reached = false;
+        }
+        recordConditionWait("count reached", start, reached);
+        return reached;
+    }
+
+    /**
+     * Waits until the video element has played past {@code seconds}.
+     * Returns false if playback had not got there when the budget ran out. Under the virtual clock
+     * playback only moves on a tick, so this checks once and returns at once.
+     */
+    protected boolean waitForVideoTime(double seconds, int budgetMs) {
+        String playedPast = "seconds => {\n" +
+                "  const videoElement = document.querySelector('video');\n" +
+                "  return videoElement !== null && videoElement.currentTime >= seconds;\n" +
+                "}";
+        long start = System.nanoTime();
+        boolean reached = true;
+        if (virtualClock.get() != null) {
+            // waitForFunction polls on animation frames, which the clock has replaced
+            reached = (Boolean) page().evaluate(playedPast, seconds);
+        } else {
+            try {
+                page().waitForFunction(playedPast, seconds, new Page.WaitForFunctionOptions().setTimeout(budgetMs));
+            } catch (TimeoutError e) {
+                reached = false;
+            }
+        }
+        recordConditionWait("video time reached", start, reached);
+        return reached;
+    }
+
+    private void recordConditionWait(String kind, long startNanos, boolean satisfied) {
+        WaitStats.recordCondition(testName(), kind, (System.nanoTime() - startNanos) / 1_000_000, satisfied);
     }
 
     protected void wait(int milliseconds) {
+        WaitStats.recordSleep(milliseconds);
         try {
             Thread.sleep(milliseconds);
         } catch (InterruptedException e) {
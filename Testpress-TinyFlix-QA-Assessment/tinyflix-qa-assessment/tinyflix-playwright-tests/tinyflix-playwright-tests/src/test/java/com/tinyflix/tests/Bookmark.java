@@ -0,0 +1,57 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of one entry in the bookmark list. {@link #snapshotAll(Page)} reads every bookmark in a
+ * single driver round trip.
+ */
+public final class Bookmark {
+
+    private static final String SNAPSHOT_SCRIPT = "items => items.map(item => {\n" +
+            "  const time = item.textContent.match(/\\d+:\\d{2}(:\\d{2})?/);\n" +
+            "  return { text: item.textContent.trim(), timestamp: time ? time[0] : null };\n" +
+            "})";
+
+    private final String text;
+    private final String timestamp;
+
+    private Bookmark(String text, String timestamp) {
+        this.text = text;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Reads every {@code .bookmark-item} on the page, in display order.
+     */
+    public static List<Bookmark> snapshotAll(Page page) {
+        List<Bookmark> bookmarks = new ArrayList<>();
+        for (Object entry : (List<?>) page.locator(".bookmark-item").evaluateAll(SNAPSHOT_SCRIPT)) {
+            Map<?, ?> bookmark = (Map<?, ?>) entry;
+            bookmarks.add(new Bookmark((String) bookmark.get("text"), (String) bookmark.get("timestamp")));
+        }
+        return bookmarks;
+    }
+
+    /**
+     * The full text of the bookmark, including the video title.
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * The first time label in the bookmark, e.g. "1:05", or null if it shows none.
+     */
+    public String timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Bookmark{text=" + text + "}";
+    }
+}
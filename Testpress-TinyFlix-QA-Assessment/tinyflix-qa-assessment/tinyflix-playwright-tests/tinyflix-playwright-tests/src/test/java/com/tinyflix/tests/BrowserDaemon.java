@@ -0,0 +1,395 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Playwright;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A headless Chromium that outlives the test run, so the next mvn test connects to a running browser
+ * instead of starting one.
+ *
+ * With -Dtinyflix.daemon=true the pool connects its browsers to the daemon over its DevTools
+ * websocket. The first run starts it: a small watchdog JVM, run from target/test-classes, launches
+ * Chromium with remote debugging and writes its port, versions and pids to
+ * .tinyflix/browser-daemon/state.properties. Later runs find it there, check that it still answers
+ * and that it is the Chromium build this Playwright version installs, and replace it when it is not.
+ * The watchdog stops the browser after -Dtinyflix.daemon.idleMinutes (default 30) with no page open
+ * and no run connecting. Stop it at any time with:
+ *
+ *   java -cp target/test-classes com.tinyflix.tests.BrowserDaemon stop
+ *
+ * The watchdog only uses the JDK, since the test dependencies are not on its class path.
+ */
+public final class BrowserDaemon {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("tinyflix.daemon", "false"));
+
+    private static final long IDLE_MINUTES = Long.getLong("tinyflix.daemon.idleMinutes", 30);
+    private static final Path DIR = Paths.get(System.getProperty("tinyflix.daemon.dir", ".tinyflix/browser-daemon"));
+
+    // Bump when the state file or the browser arguments change, so older daemons are replaced
+    private static final int FORMAT = 1;
+    private static final long STARTUP_TIMEOUT_MS = 30_000;
+    private static final long POLL_MS = 10_000;
+
+    // What Playwright passes to a headless Chromium it launches, minus what only its own pipe needs
+    private static final List<String> BROWSER_ARGS = Arrays.asList(
+            "--headless",
+            "--no-sandbox",
+            "--no-first-run",
+            "--no-default-browser-check",
+            "--no-service-autorun",
+            "--enable-automation",
+            "--disable-background-networking",
+            "--disable-background-timer-throttling",
+            "--disable-backgrounding-occluded-windows",
+            "--disable-renderer-backgrounding",
+            "--disable-back-forward-cache",
+            "--disable-breakpad",
+            "--disable-component-update",
+            "--disable-default-apps",
+            "--disable-dev-shm-usage",
+            "--disable-extensions",
+            "--disable-hang-monitor",
+            "--disable-ipc-flooding-protection",
+            "--disable-popup-blocking",
+            "--disable-prompt-on-repost",
+            "--force-color-profile=srgb",
+            "--metrics-recording-only",
+            "--password-store=basic",
+            "--use-mock-keychain",
+            "--hide-scrollbars",
+            "--mute-audio");
+
+    private static final Pattern BROWSER_VERSION = Pattern.compile("\"Browser\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern PAGE_TARGET = Pattern.compile("\"type\"\\s*:\\s*\"page\"");
+
+    private static boolean resolved;
+    private static String endpoint;
+
+    private BrowserDaemon() {
+    }
+
+    /**
+     * The DevTools endpoint of a running daemon that matches this Playwright version, starting one
+     * first if needed, or null when there is none and the pool should launch its own browsers.
+     */
+    static synchronized String endpoint(Playwright playwright) {
+        if (resolved) {
+            // Only a daemon this run connects to is kept alive; without one there may be no directory either
+            if (endpoint != null) {
+                touch(DIR);
+            }
+            return endpoint;
+        }
+        resolved = true;
+        if (PerfTrace.ENABLED) {
+            System.out.println("[daemon] -Dtinyflix.trace traces the whole browser, so this run launches its own");
+            return null;
+        }
+        String executable = playwright.chromium().executablePath();
+        long start = System.nanoTime();
+        Properties state = readState(DIR);
+        if (state != null && (!String.valueOf(FORMAT).equals(state.getProperty("format"))
+                || !executable.equals(state.getProperty("executable")))) {
+            System.out.println("[daemon] replacing the daemon running " + state.getProperty("executable")
+                    + ", this Playwright version needs " + executable);
+            stop(state);
+            state = null;
+        }
+        if (state != null && !String.valueOf(state.getProperty("browser")).equals(browserVersion(port(state)))) {
+            System.out.println("[daemon] the daemon on port " + port(state) + " is not answering, starting a new one");
+            stop(state);
+            state = null;
+        }
+        boolean reused = state != null;
+        if (state == null) {
+            state = start(executable);
+            if (state == null) {
+                System.out.println("[daemon] no daemon started within " + STARTUP_TIMEOUT_MS / 1000
+                        + " s, see " + DIR.resolve("daemon.log") + "; launching browsers instead");
+                return null;
+            }
+        }
+        endpoint = "http://127.0.0.1:" + port(state);
+        touch(DIR);
+        System.out.println(reused
+                ? "[daemon] reusing " + state.getProperty("browser") + " on port " + port(state)
+                        + ", running since " + state.getProperty("started")
+                : "[daemon] started " + state.getProperty("browser") + " on port " + port(state)
+                        + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return endpoint;
+    }
+
+    /**
+     * Stops using the daemon for the rest of the run, e.g. after a connection to it failed.
+     */
+    static synchronized void unavailable() {
+        endpoint = null;
+    }
+
+    private static Properties start(String executable) {
+        Path stateFile = DIR.resolve("state.properties");
+        try {
+            Files.createDirectories(DIR);
+            Files.deleteIfExists(stateFile);
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            String classes = Paths.get(BrowserDaemon.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+            // The watchdog is not a child the test JVM waits for, so it keeps running after the suite
+            Process watchdog = new ProcessBuilder(java, "-cp", classes, BrowserDaemon.class.getName(),
+                    "run", DIR.toAbsolutePath().toString(), executable, String.valueOf(IDLE_MINUTES))
+                    .redirectErrorStream(true)
+                    .redirectOutput(Redirect.appendTo(DIR.resolve("daemon.log").toFile()))
+                    .start();
+            watchdog.getOutputStream().close();
+            long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MS;
+            while (System.currentTimeMillis() < deadline && watchdog.isAlive()) {
+                Properties state = readState(DIR);
+                if (state != null) {
+                    return state;
+                }
+                Thread.sleep(100);
+            }
+            watchdog.destroy();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start the browser daemon in " + DIR, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Cannot locate the test classes for the browser daemon", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Stops the watchdog, whose exit takes the browser with it, and the browser itself if the
+     * watchdog is already gone. Processes whose command line does not match are left alone, as the
+     * pids may have been reused since the state file was written.
+     */
+    private static void stop(Properties state) {
+        stopProcess(state.getProperty("pid"), BrowserDaemon.class.getName());
+        stopProcess(state.getProperty("browserPid"), state.getProperty("executable"));
+        try {
+            Files.deleteIfExists(DIR.resolve("state.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remove the browser daemon state in " + DIR, e);
+        }
+    }
+
+    private static void stopProcess(String pid, String commandMarker) {
+        if (pid == null) {
+            return;
+        }
+        Optional<ProcessHandle> handle = ProcessHandle.of(Long.parseLong(pid));
+        if (!handle.isPresent() || !handle.get().info().commandLine()
+                .map(command -> command.contains(commandMarker)).orElse(false)) {
+            return;
+        }
+        handle.get().destroy();
+        try {
+            handle.get().onExit().get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            handle.get().destroyForcibly();
+        }
+    }
+
+    /**
+     * {@code run <dir> <chromium> <idleMinutes>} runs the watchdog, {@code stop} stops the daemon.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1 && args[0].equals("stop")) {
+            Properties state = readState(DIR);
+            if (state == null) {
+                System.out.println("No browser daemon is running");
+            } else {
+                stop(state);
+                System.out.println("Stopped the browser daemon on port " + port(state));
+            }
+        } else if (args.length == 4 && args[0].equals("run")) {
+            watch(Paths.get(args[1]), args[2], Long.parseLong(args[3]));
+        } else {
+            System.out.println("Usage: BrowserDaemon stop | run <dir> <chromium> <idleMinutes>");
+            System.exit(2);
+        }
+    }
+
+    private static void watch(Path dir, String executable, long idleMinutes) throws IOException, InterruptedException {
+        Path stateFile = dir.resolve("state.properties");
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(executable);
+        command.addAll(BROWSER_ARGS);
+        command.add("--remote-debugging-port=" + port);
+        command.add("--user-data-dir=" + dir.resolve("profile").toAbsolutePath());
+        command.add("about:blank");
+        Process browser = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(Redirect.appendTo(dir.resolve("browser.log").toFile()))
+                .start();
+        long pid = ProcessHandle.current().pid();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            browser.destroy();
+            try {
+                if (!browser.waitFor(10, TimeUnit.SECONDS)) {
+                    browser.destroyForcibly();
+                }
+                Properties state = readState(dir);
+                if (state != null && String.valueOf(pid).equals(state.getProperty("pid"))) {
+                    Files.deleteIfExists(stateFile);
+                }
+            } catch (InterruptedException | IOException e) {
+                browser.destroyForcibly();
+            }
+        }));
+
+        String version = null;
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MS;
+        while (version == null && browser.isAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            version = browserVersion(port);
+        }
+        if (version == null) {
+            System.out.println(Instant.now() + " Chromium did not answer on port " + port + ", see browser.log");
+            System.exit(1);
+        }
+        Properties state = new Properties();
+        state.setProperty("format", String.valueOf(FORMAT));
+        state.setProperty("executable", executable);
+        state.setProperty("browser", version);
+        state.setProperty("port", String.valueOf(port));
+        state.setProperty("pid", String.valueOf(pid));
+        state.setProperty("browserPid", String.valueOf(browser.pid()));
+        state.setProperty("started", Instant.now().toString());
+        Path temp = dir.resolve("state.properties.tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            state.store(writer, "TinyFlix browser daemon");
+        }
+        // Written last and atomically, so a run that sees the file can connect
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        touch(dir);
+        System.out.println(Instant.now() + " " + version + " listening on port " + port);
+
+        long lastActive = System.currentTimeMillis();
+        while (browser.isAlive()) {
+            Thread.sleep(POLL_MS);
+            if (openPages(port) > 0) {
+                lastActive = System.currentTimeMillis();
+            }
+            long lastUsed = Math.max(lastActive, lastConnect(dir));
+            if (System.currentTimeMillis() - lastUsed > TimeUnit.MINUTES.toMillis(idleMinutes)) {
+                System.out.println(Instant.now() + " idle for " + idleMinutes + " min, shutting down");
+                break;
+            }
+        }
+        if (!browser.isAlive()) {
+            System.out.println(Instant.now() + " Chromium exited with " + browser.exitValue());
+        }
+        System.exit(0);
+    }
+
+    // Runs mark the daemon as used when they connect, which the watchdog counts as activity
+    private static void touch(Path dir) {
+        try {
+            Path marker = dir.resolve("last-used");
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+            Files.setLastModifiedTime(marker, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to mark the browser daemon as used in " + dir, e);
+        }
+    }
+
+    private static long lastConnect(Path dir) {
+        try {
+            return Files.getLastModifiedTime(dir.resolve("last-used")).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static Properties readState(Path dir) {
+        Path file = dir.resolve("state.properties");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            return null;
+        }
+        return properties.getProperty("port") == null ? null : properties;
+    }
+
+    private static int port(Properties state) {
+        return Integer.parseInt(state.getProperty("port"));
+    }
+
+    /**
+     * The browser's product and version as DevTools reports it, or null if nothing answers on the port.
+     */
+    private static String browserVersion(int port) {
+        String body = get(port, "/json/version");
+        if (body == null) {
+            return null;
+        }
+        Matcher matcher = BROWSER_VERSION.matcher(body);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static int openPages(int port) {
+        String body = get(port, "/json/list");
+        int pages = 0;
+        if (body != null) {
+            Matcher matcher = PAGE_TARGET.matcher(body);
+            while (matcher.find()) {
+                pages++;
+            }
+        }
+        // The blank page the browser starts with is always there
+        return Math.max(0, pages - 1);
+    }
+
+    private static String get(int port, String path) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+            connection.setConnectTimeout(1_000);
+            connection.setReadTimeout(2_000);
+            try (InputStream in = connection.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
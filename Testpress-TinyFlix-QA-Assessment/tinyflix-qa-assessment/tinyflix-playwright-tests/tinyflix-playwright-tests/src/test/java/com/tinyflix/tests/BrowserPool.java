@@ -0,0 +1,190 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.*;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suite-wide pool of warm Chromium instances.
+ *
+ * Starting a Playwright driver and a browser costs seconds, so tests lease an already running
+ * browser and hand it back when they are done. Each pooled browser owns its own driver, and a lease
+ * gives one thread exclusive use of both, which is how Playwright expects to be used across threads.
+ * A browser is health checked on every lease and return, and recycled after a fixed number of uses.
+ *
+ * With -Dtinyflix.daemon=true the drivers connect to the long-lived {@link BrowserDaemon} instead of
+ * launching, and each pooled browser is a connection to it; when the daemon cannot be reached they
+ * launch as usual.
+ *
+ * Configure with -Dtinyflix.pool.size (default 4) and -Dtinyflix.pool.maxUses (default 50).
+ */
+public final class BrowserPool {
+
+    private static final BrowserPool INSTANCE = new BrowserPool(
+            Integer.getInteger("tinyflix.pool.size", 4),
+            Integer.getInteger("tinyflix.pool.maxUses", 50));
+
+    private static final long LEASE_TIMEOUT_SECONDS = 120;
+
+    private final int size;
+    private final int maxUses;
+    private final BlockingQueue<PooledBrowser> idle = new LinkedBlockingQueue<>();
+    private final Set<PooledBrowser> all = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger launched = new AtomicInteger();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger leases = new AtomicInteger();
+    private final AtomicInteger recycled = new AtomicInteger();
+
+    private BrowserPool(int size, int maxUses) {
+        this.size = Math.max(1, size);
+        this.maxUses = Math.max(1, maxUses);
+    }
+
+    public static BrowserPool get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Takes a healthy browser from the pool, launching a new one while the pool is below its size
+     * and waiting for a return otherwise.
+     */
+    public PooledBrowser lease() {
+        while (true) {
+            PooledBrowser pooled = idle.poll();
+            if (pooled == null) {
+                pooled = launchIfBelowSize();
+            }
+            if (pooled == null) {
+                try {
+                    pooled = idle.poll(LEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a pooled browser", e);
+                }
+                if (pooled == null) {
+                    throw new IllegalStateException("No pooled browser became available within "
+                            + LEASE_TIMEOUT_SECONDS + "s (pool size " + size + ")");
+                }
+            }
+            if (pooled.isHealthy()) {
+                leases.incrementAndGet();
+                return pooled;
+            }
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Hands a browser back. Browsers that are unhealthy or have reached their use limit are
+     * closed so the next lease launches a fresh one.
+     */
+    public void release(PooledBrowser pooled) {
+        pooled.uses++;
+        if (pooled.uses >= maxUses || !pooled.isHealthy()) {
+            recycled.incrementAndGet();
+            discard(pooled);
+        } else {
+            idle.add(pooled);
+        }
+    }
+
+    public void shutdown() {
+        for (PooledBrowser pooled : all) {
+            discard(pooled);
+        }
+        idle.clear();
+        if (launched.get() > 0) {
+            System.out.println("Browser pool: " + launched.get() + " browsers launched"
+                    + (connected.get() > 0 ? " (" + connected.get() + " connected to the daemon)" : "")
+                    + " for " + leases.get() + " leases, " + recycled.get() + " recycled");
+        }
+    }
+
+    private synchronized PooledBrowser launchIfBelowSize() {
+        if (all.size() >= size) {
+            return null;
+        }
+        Playwright playwright = Playwright.create();
+        Browser browser = connectToDaemon(playwright);
+        if (browser == null) {
+            browser = playwright.chromium().launch(new BrowserType.LaunchOptions()
+                    .setHeadless(true)
+                    .setSlowMo(50));
+        }
+        PooledBrowser pooled = new PooledBrowser(playwright, browser);
+        all.add(pooled);
+        launched.incrementAndGet();
+        return pooled;
+    }
+
+    private Browser connectToDaemon(Playwright playwright) {
+        if (!BrowserDaemon.ENABLED) {
+            return null;
+        }
+        String endpoint = BrowserDaemon.endpoint(playwright);
+        if (endpoint == null) {
+            return null;
+        }
+        try {
+            Browser browser = playwright.chromium().connectOverCDP(endpoint,
+                    new BrowserType.ConnectOverCDPOptions().setSlowMo(50));
+            connected.incrementAndGet();
+            return browser;
+        } catch (PlaywrightException e) {
+            System.out.println("[daemon] could not connect to " + endpoint + ", launching browsers instead: "
+                    + String.valueOf(e.getMessage()).split("\n", 2)[0]);
+            BrowserDaemon.unavailable();
+            return null;
+        }
+    }
+
+    private void discard(PooledBrowser pooled) {
+        if (all.remove(pooled)) {
+            try {
+                // Closing the driver closes the browser it launched, or only disconnects from the daemon;
+                // contexts made over the connection are disposed with it
+                pooled.playwright.close();
+            } catch (PlaywrightException e) {
+                System.out.println("Failed to close pooled browser: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A browser and the driver that launched it. Only the thread holding the lease may use them.
+     */
+    public static final class PooledBrowser {
+        private final Playwright playwright;
+        private final Browser browser;
+        // A browser on the daemon starts with its default context, and those of earlier connections
+        private final int initialContexts;
+        private int uses;
+
+        private PooledBrowser(Playwright playwright, Browser browser) {
+            this.playwright = playwright;
+            this.browser = browser;
+            this.initialContexts = browser.contexts().size();
+        }
+
+        public Browser browser() {
+            return browser;
+        }
+
+        public Playwright playwright() {
+            return playwright;
+        }
+
+        // A browser that lost its connection or still has contexts left over from the previous lease is not reused
+        private boolean isHealthy() {
+            try {
+                return browser.isConnected() && browser.contexts().size() == initialContexts;
+            } catch (PlaywrightException e) {
+                return false;
+            }
+        }
+    }
+}
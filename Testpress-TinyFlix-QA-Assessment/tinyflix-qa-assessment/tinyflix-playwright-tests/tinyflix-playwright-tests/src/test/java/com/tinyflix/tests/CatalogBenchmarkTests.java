@@ -0,0 +1,132 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.*;
+import org.testng.SkipException;
+import org.testng.annotations.*;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.testng.Assert.*;
+
+public class CatalogBenchmarkTests extends BaseTest {
+
+    private static final int ITERATIONS = Integer.getInteger("tinyflix.bench.iterations", 20);
+
+    // Where the app loads its video list from; the synthetic catalog is served in its place
+    private static final String CATALOG_ENDPOINT = System.getProperty("tinyflix.catalog.endpoint", "**/api/videos*");
+
+    // Target from performance_analysis.md, which is stated for a 100 video catalog
+    private static final int TARGET_CATALOG_SIZE = 100;
+    private static final double FILTER_SORT_TARGET_MS = 50;
+
+    @DataProvider(name = "catalogSizes")
+    public Object[][] catalogSizes() {
+        return Arrays.stream(System.getProperty("tinyflix.bench.catalogSizes", "100,1000,10000,50000").split(","))
+                .map(size -> new Object[]{Integer.parseInt(size.trim())})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "catalogSizes",
+            description = "Search, filter and sort should settle within the target latency as the catalog grows")
+    public void testFilterSortLatency(int catalogSize) {
+        String catalog = SyntheticCatalog.json(catalogSize);
+        AtomicInteger catalogRequests = new AtomicInteger();
+        page().route(CATALOG_ENDPOINT, route -> {
+            catalogRequests.incrementAndGet();
+            route.fulfill(new Route.FulfillOptions()
+                    .setStatus(200)
+                    .setContentType("application/json")
+                    .setBody(catalog));
+        });
+
+        navigateToApp();
+        if (catalogRequests.get() == 0) {
+            throw new SkipException("The app did not request " + CATALOG_ENDPOINT
+                    + "; set -Dtinyflix.catalog.endpoint to the URL it loads videos from");
+        }
+        DomSettleProbe.install(page());
+
+        Locator search = page().locator("input[placeholder*='Search videos']");
+        Locator filter = page().locator("select").first();
+        Locator sort = page().locator("select").nth(1);
+        // The filter the page starts with shows the whole catalog
+        String allVideos = filter.inputValue();
+
+        Map<String, LatencyStats> operations = new LinkedHashMap<>();
+        Map<String, Integer> unchanged = new LinkedHashMap<>();
+        for (String operation : new String[]{"search", "filter recent", "filter popular", "sort title", "sort date", "sort rating"}) {
+            operations.put(operation, new LatencyStats("catalog", operation));
+            unchanged.put(operation, 0);
+        }
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            // Alternate terms so every search changes the result set
+            String term = i % 2 == 0 ? "react" : "css";
+            // Every operation starts from the full catalog, not what the one before it left on screen
+            showFullCatalog(search, filter, allVideos);
+            measure("search", operations, unchanged, () -> search.fill(term));
+
+            showFullCatalog(search, filter, allVideos);
+            measure("filter recent", operations, unchanged, () -> filter.selectOption("recent"));
+            showFullCatalog(search, filter, allVideos);
+            measure("filter popular", operations, unchanged, () -> filter.selectOption("popular"));
+
+            showFullCatalog(search, filter, allVideos);
+            measure("sort title", operations, unchanged, () -> sort.selectOption("title"));
+            measure("sort date", operations, unchanged, () -> sort.selectOption("date"));
+            measure("sort rating", operations, unchanged, () -> sort.selectOption("rating"));
+        }
+
+        String variant = "videos=" + catalogSize;
+        for (LatencyStats stats : operations.values()) {
+            stats.report(variant);
+        }
+        unchanged.forEach((operation, runs) -> {
+            if (runs > 0) {
+                System.out.println("[catalog] " + variant + ": " + operation + " left the list unchanged in " + runs
+                        + " of " + ITERATIONS + " runs, which are not in its latencies");
+            }
+        });
+
+        if (catalogSize == TARGET_CATALOG_SIZE && budgetsApply()) {
+            for (LatencyStats stats : operations.values()) {
+                assertTrue(stats.count() == 0 || stats.percentile(95) <= FILTER_SORT_TARGET_MS,
+                        "Filter/sort p95 should be under " + FILTER_SORT_TARGET_MS + " ms for "
+                                + TARGET_CATALOG_SIZE + " videos: " + stats.summary());
+            }
+        }
+    }
+
+    /**
+     * Runs the interaction and waits for the card list to settle, recording the latency under
+     * {@code operation}, or counting the run in {@code unchanged} if the interaction left the DOM as it was.
+     */
+    private void measure(String operation, Map<String, LatencyStats> operations, Map<String, Integer> unchanged,
+                         Runnable interaction) {
+        Double latency = settle(interaction);
+        if (latency != null) {
+            operations.get(operation).add(latency);
+        } else {
+            unchanged.merge(operation, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Clears the search and resets the filter, unmeasured, so the whole synthetic catalog is listed.
+     */
+    private void showFullCatalog(Locator search, Locator filter, String allVideos) {
+        if (!search.inputValue().isEmpty()) {
+            settle(() -> search.fill(""));
+        }
+        if (!allVideos.equals(filter.inputValue())) {
+            settle(() -> filter.selectOption(allVideos));
+        }
+    }
+
+    private Double settle(Runnable interaction) {
+        DomSettleProbe.arm(page());
+        interaction.run();
+        return DomSettleProbe.awaitSettled(page(), 60_000);
+    }
+}
@@ -0,0 +1,118 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.*;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Snapshot of a browser context after a shared flow prefix such as navigateToApp() + selectVideo(),
+ * so tests can fork from it instead of paying for the prefix in every fresh context.
+ *
+ * A checkpoint holds the context's storage state, the URL the prefix ended on and every GET response
+ * the prefix loaded. The SPA's in-memory state cannot be serialised, so a fork reloads the app from the
+ * cached responses and replays only the last in-app step of the prefix; the dev server round trips that
+ * dominate the prefix are not repeated.
+ */
+final class Checkpoint {
+
+    // Media is fetched with byte ranges and streamed, so it is always loaded from the server
+    private static final String[] UNCACHED_SUFFIXES = {".mp4", ".webm", ".m3u8", ".ts"};
+
+    private final String storageState;
+    private final String url;
+    private final Map<String, CachedResponse> responses;
+    private final Consumer<Page> restore;
+
+    private Checkpoint(String storageState, String url, Map<String, CachedResponse> responses, Consumer<Page> restore) {
+        this.storageState = storageState;
+        this.url = url;
+        this.responses = responses;
+        this.restore = restore;
+    }
+
+    /**
+     * Runs {@code prefix} in a throwaway context and snapshots the result. {@code restore} is the
+     * in-app step a fork replays after reloading the checkpoint URL. {@code prepare} can add routes to
+     * the throwaway context; they take precedence over the checkpoint's own.
+     */
+    static Checkpoint capture(Browser browser, Browser.NewContextOptions options, Consumer<BrowserContext> prepare,
+                              Consumer<Page> prefix, Consumer<Page> restore) {
+        Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+        BrowserContext captureContext = browser.newContext(options);
+        try {
+            captureContext.route("**/*", route -> {
+                Request request = route.request();
+                if (!"GET".equals(request.method()) || !isCacheable(request.url())) {
+                    route.resume();
+                    return;
+                }
+                APIResponse response = route.fetch();
+                if (response.status() == 200) {
+                    responses.put(request.url(), new CachedResponse(response.status(), response.headers(), response.body()));
+                }
+                route.fulfill(new Route.FulfillOptions().setResponse(response));
+            });
+            prepare.accept(captureContext);
+            Page capturePage = captureContext.newPage();
+            prefix.accept(capturePage);
+            return new Checkpoint(captureContext.storageState(), capturePage.url(), responses, restore);
+        } finally {
+            captureContext.close();
+        }
+    }
+
+    /**
+     * Opens a new context seeded with the checkpoint's storage state and cached responses, and brings
+     * its page to the same point in the flow as the prefix.
+     */
+    BrowserContext fork(Browser browser, Browser.NewContextOptions options) {
+        BrowserContext forked = browser.newContext(options.setStorageState(storageState));
+        forked.route("**/*", route -> {
+            Request request = route.request();
+            CachedResponse cached = "GET".equals(request.method()) ? responses.get(request.url()) : null;
+            if (cached == null) {
+                route.resume();
+                return;
+            }
+            route.fulfill(new Route.FulfillOptions()
+                    .setStatus(cached.status)
+                    .setHeaders(cached.headers)
+                    .setBodyBytes(cached.body));
+        });
+        return forked;
+    }
+
+    void restore(Page page) {
+        page.navigate(url);
+        restore.accept(page);
+    }
+
+    private static boolean isCacheable(String url) {
+        String path = url.split("[?#]", 2)[0];
+        for (String suffix : UNCACHED_SUFFIXES) {
+            if (path.endsWith(suffix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class CachedResponse {
+        private final int status;
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        private CachedResponse(int status, Map<String, String> headers, byte[] body) {
+            this.status = status;
+            // The body is stored decoded, so encoding and length headers from the wire no longer apply
+            this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            this.headers.putAll(headers);
+            this.headers.remove("content-encoding");
+            this.headers.remove("content-length");
+            this.headers.remove("transfer-encoding");
+            this.body = body;
+        }
+    }
+}
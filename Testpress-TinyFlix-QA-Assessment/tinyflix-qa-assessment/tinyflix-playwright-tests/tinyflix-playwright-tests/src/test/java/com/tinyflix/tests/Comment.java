@@ -0,0 +1,88 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of one comment and its replies. {@link #snapshotAll(Page)} reads the whole thread in a
+ * single driver round trip.
+ */
+public final class Comment {
+
+    // Replies are .reply elements inside a .comment; their own like buttons must not count for the comment
+    private static final String SNAPSHOT_SCRIPT = "comments => {\n" +
+            "  const likeButton = (element, isOwn) => Array.from(element.querySelectorAll('button'))\n" +
+            "      .find(candidate => candidate.textContent.includes('👍') && isOwn(candidate));\n" +
+            "  const snapshot = (element, isOwn, replies) => {\n" +
+            "    const button = likeButton(element, isOwn);\n" +
+            "    const label = button ? button.textContent.trim() : null;\n" +
+            "    const count = label ? label.match(/\\d+/) : null;\n" +
+            "    return { text: text(element), likeLabel: label, likes: count ? parseInt(count[0], 10) : 0, replies: replies };\n" +
+            "  };\n" +
+            "  const text = element => {\n" +
+            "    const body = element.querySelector('p');\n" +
+            "    return (body || element).textContent.trim();\n" +
+            "  };\n" +
+            "  return comments.map(comment => snapshot(comment, button => !button.closest('.reply'),\n" +
+            "      Array.from(comment.querySelectorAll('.reply')).map(reply => snapshot(reply, () => true, []))));\n" +
+            "}";
+
+    private final String text;
+    private final String likeLabel;
+    private final int likes;
+    private final List<Comment> replies;
+
+    private Comment(String text, String likeLabel, int likes, List<Comment> replies) {
+        this.text = text;
+        this.likeLabel = likeLabel;
+        this.likes = likes;
+        this.replies = Collections.unmodifiableList(replies);
+    }
+
+    /**
+     * Reads every {@code .comment} on the page, in display order, with its replies.
+     */
+    public static List<Comment> snapshotAll(Page page) {
+        return fromJs((List<?>) page.locator(".comment").evaluateAll(SNAPSHOT_SCRIPT));
+    }
+
+    private static List<Comment> fromJs(List<?> entries) {
+        List<Comment> comments = new ArrayList<>();
+        for (Object entry : entries) {
+            Map<?, ?> comment = (Map<?, ?>) entry;
+            comments.add(new Comment((String) comment.get("text"), (String) comment.get("likeLabel"), ((Number) comment.get("likes")).intValue(),
+                    fromJs((List<?>) comment.get("replies"))));
+        }
+        return comments;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * The text of the comment's own like button as displayed, e.g. "👍 3", or null if it has none.
+     */
+    public String likeLabel() {
+        return likeLabel;
+    }
+
+    /**
+     * The like count shown on the comment's own like button; 0 when the button shows no count.
+     */
+    public int likes() {
+        return likes;
+    }
+
+    public List<Comment> replies() {
+        return replies;
+    }
+
+    @Override
+    public String toString() {
+        return "Comment{text=" + text + ", likes=" + likes + ", replies=" + replies.size() + "}";
+    }
+}
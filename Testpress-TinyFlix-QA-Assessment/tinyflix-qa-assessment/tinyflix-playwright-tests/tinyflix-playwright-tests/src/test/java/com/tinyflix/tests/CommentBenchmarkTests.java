@@ -0,0 +1,115 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.*;
+import org.testng.SkipException;
+import org.testng.annotations.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.testng.Assert.*;
+
+public class CommentBenchmarkTests extends BaseTest {
+
+    private static final int ITERATIONS = Integer.getInteger("tinyflix.bench.iterations", 20);
+    private static final int RENDER_ITERATIONS = 5;
+    private static final int REPLIES_PER_COMMENT = Integer.getInteger("tinyflix.bench.repliesPerComment", 3);
+
+    // Where the app loads a video's comments from; the synthetic thread is served in its place
+    private static final String COMMENTS_ENDPOINT = System.getProperty("tinyflix.comments.endpoint", "**/api/videos/*/comments*");
+
+    // Target from performance_analysis.md, which is stated for 50 comments
+    private static final int TARGET_COMMENT_COUNT = 50;
+    private static final double COMMENT_RENDER_TARGET_MS = 100;
+
+    // Top-level comments only, in case replies are rendered as comments nested in their parent
+    private static final String TOP_LEVEL_COMMENT = ".comment:not(.reply):not(.comment .comment)";
+
+    @DataProvider(name = "commentCounts")
+    public Object[][] commentCounts() {
+        return Arrays.stream(System.getProperty("tinyflix.bench.commentCounts", "50,500,5000").split(","))
+                .map(count -> new Object[]{Integer.parseInt(count.trim())})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "commentCounts",
+            description = "Comment list should render and update within the target latency as threads grow")
+    public void testCommentRenderingLatency(int commentCount) {
+        String comments = SyntheticComments.json(commentCount, REPLIES_PER_COMMENT);
+        AtomicInteger commentRequests = new AtomicInteger();
+        page().route(COMMENTS_ENDPOINT, route -> {
+            commentRequests.incrementAndGet();
+            route.fulfill(new Route.FulfillOptions()
+                    .setStatus(200)
+                    .setContentType("application/json")
+                    .setBody(comments));
+        });
+        LongTaskMonitor.install(context());
+
+        String variant = "comments=" + commentCount + ",replies=" + REPLIES_PER_COMMENT;
+        LatencyStats initialRender = new LatencyStats("comments", "initial render");
+        LatencyStats likeToPaint = new LatencyStats("comments", "like to paint");
+        LatencyStats replyToPaint = new LatencyStats("comments", "reply to paint");
+        LatencyStats longTasks = new LatencyStats("comments", "long tasks");
+        List<Double> longTaskDurations = new ArrayList<>();
+
+        for (int i = 0; i < RENDER_ITERATIONS; i++) {
+            navigateToApp();
+            DomSettleProbe.install(page());
+            DomSettleProbe.arm(page());
+            page().locator("text=React Basics").first().click();
+            page().waitForSelector(".video-player");
+            if (commentRequests.get() == 0) {
+                throw new SkipException("The app did not request " + COMMENTS_ENDPOINT
+                        + "; set -Dtinyflix.comments.endpoint to the URL it loads comments from");
+            }
+            page().waitForSelector(".comment");
+            addIfPresent(initialRender, DomSettleProbe.awaitSettled(page(), 120_000));
+            // The next navigation discards this page's long tasks, so collect them now
+            longTaskDurations.addAll(LongTaskMonitor.drain(page()));
+        }
+        assertEquals(page().locator(TOP_LEVEL_COMMENT).count(), commentCount,
+                "Every seeded comment should be rendered");
+        for (int seeded : new int[]{0, commentCount - 1}) {
+            assertEquals(page().locator(TOP_LEVEL_COMMENT + ":has-text('Comment " + seeded + " on this video')").count(), 1,
+                    "Seeded comment " + seeded + " should be rendered once");
+        }
+
+        // Like and reply in the middle of the thread, where a full re-render costs the most
+        Locator comment = page().locator(TOP_LEVEL_COMMENT).nth(commentCount / 2);
+        for (int i = 0; i < ITERATIONS; i++) {
+            DomSettleProbe.arm(page());
+            comment.locator("button:has-text('👍')").first().click();
+            addIfPresent(likeToPaint, DomSettleProbe.awaitSettled(page(), 60_000));
+
+            comment.locator("input[placeholder='Reply to this comment...']").fill("Benchmark reply " + i);
+            DomSettleProbe.arm(page());
+            comment.locator("button:has-text('Reply')").click();
+            addIfPresent(replyToPaint, DomSettleProbe.awaitSettled(page(), 60_000));
+        }
+
+        longTaskDurations.addAll(LongTaskMonitor.drain(page()));
+        longTaskDurations.forEach(longTasks::add);
+
+        initialRender.report(variant);
+        likeToPaint.report(variant);
+        replyToPaint.report(variant);
+        longTasks.report(variant);
+        System.out.println("comments " + variant + ": " + longTaskDurations.size() + " long tasks, "
+                + longTaskDurations.stream().mapToDouble(Double::doubleValue).sum() + " ms blocked");
+
+        if (commentCount == TARGET_COMMENT_COUNT && budgetsApply()) {
+            for (LatencyStats stats : Arrays.asList(initialRender, likeToPaint, replyToPaint)) {
+                assertTrue(stats.count() == 0 || stats.percentile(95) <= COMMENT_RENDER_TARGET_MS,
+                        "Comment rendering p95 should be under " + COMMENT_RENDER_TARGET_MS + " ms for "
+                                + TARGET_COMMENT_COUNT + " comments: " + stats.summary());
+            }
+        }
+    }
+
+    private void addIfPresent(LatencyStats stats, Double latency) {
+        if (latency != null) {
+            stats.add(latency);
+        }
+    }
+}
@@ -8,13 +8,11 @@ public class CommentTests extends BaseTest {
     
     @Test(description = "Comments should be added correctly")
     public void testAddComment() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Find comment textarea
-        Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+        Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
         assertTrue(commentTextarea.isVisible(), "Comment textarea should be visible");
         
         // Enter a comment
@@ -22,40 +20,38 @@ public class CommentTests extends BaseTest {
         commentTextarea.fill(commentText);
         
         // Click Post Comment button
-        page.locator("button:has-text('Post Comment')").click();
+        page().locator("button:has-text('Post Comment')").click();
         
         // Wait for comment to be added
-        page.waitForSelector(".comment:has-text('" + commentText + "')");
+        page().waitForSelector(".comment:has-text('" + commentText + "')");
         
         // Verify comment is displayed
-        assertTrue(page.locator(".comment").first().textContent().contains(commentText), 
+        assertTrue(page().locator(".comment").first().textContent().contains(commentText), 
                 "Added comment should be displayed");
     }
     
     @Test(description = "Comment validation should work correctly")
     public void testCommentValidation() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Find comment textarea
-        Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+        Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
         
         // Test empty comment
         commentTextarea.fill("");
-        page.locator("button:has-text('Post Comment')").click();
-        assertTrue(page.locator(".error-message").isVisible(), 
+        page().locator("button:has-text('Post Comment')").click();
+        assertTrue(page().locator(".error-message").isVisible(), 
                 "Error message should be displayed for empty comment");
-        assertTrue(page.locator(".error-message").textContent().contains("empty"), 
+        assertTrue(page().locator(".error-message").textContent().contains("empty"), 
                 "Error message should indicate comment cannot be empty");
         
         // Test too short comment
         commentTextarea.fill("ab");
-        page.locator("button:has-text('Post Comment')").click();
-        assertTrue(page.locator(".error-message").isVisible(), 
+        page().locator("button:has-text('Post Comment')").click();
+        assertTrue(page().locator(".error-message").isVisible(), 
                 "Error message should be displayed for too short comment");
-        assertTrue(page.locator(".error-message").textContent().contains("at least 3 characters"), 
+        assertTrue(page().locator(".error-message").textContent().contains("at least 3 characters"), 
                 "Error message should indicate minimum length");
         
         // Test too long comment
@@ -64,50 +60,39 @@ public class CommentTests extends BaseTest {
             longComment.append("a");
         }
         commentTextarea.fill(longComment.toString());
-        page.locator("button:has-text('Post Comment')").click();
-        assertTrue(page.locator(".error-message").isVisible(), 
+        page().locator("button:has-text('Post Comment')").click();
+        assertTrue(page().locator(".error-message").isVisible(), 
                 "Error message should be displayed for too long comment");
-        assertTrue(page.locator(".error-message").textContent().contains("less than 500"), 
+        assertTrue(page().locator(".error-message").textContent().contains("less than 500"), 
                 "Error message should indicate maximum length");
     }
     
     @Test(description = "Comments should be liked correctly")
     public void testLikeComment() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Add a comment if none exists
-        if (page.locator(".comment").count() == 0) {
-            Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+        if (page().locator(".comment").count() == 0) {
+            Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
             commentTextarea.fill("Test comment for liking");
-            page.locator("button:has-text('Post Comment')").click();
-            page.waitForSelector(".comment");
+            page().locator("button:has-text('Post Comment')").click();
+            page().waitForSelector(".comment");
         }
         
-        // Get first comment
-        Locator firstComment = page.locator(".comment").first();
-        
-        // Get initial like count
-        String likeButtonText = firstComment.locator("button:has-text('👍')").textContent().trim();
-        int initialLikes = 0;
-        if (likeButtonText.length() > 1) {
-            initialLikes = Integer.parseInt(likeButtonText.substring(1).trim());
-        }
+        // Snapshot the first comment, like button label included, in one round trip
+        Locator likeButton = page().locator(".comment").first().locator("button:has-text('👍')").first();
+        Comment before = Comment.snapshotAll(page()).get(0);
+        int initialLikes = before.likes();
         
         // Click like button
-        firstComment.locator("button:has-text('👍')").click();
+        likeButton.click();
         
         // Wait for like count to update
-        wait(500);
+        waitForTextChange(likeButton, before.likeLabel(), 2000);
         
         // Get updated like count
-        String updatedLikeButtonText = firstComment.locator("button:has-text('👍')").textContent().trim();
-        int updatedLikes = 0;
-        if (updatedLikeButtonText.length() > 1) {
-            updatedLikes = Integer.parseInt(updatedLikeButtonText.substring(1).trim());
-        }
+        int updatedLikes = Comment.snapshotAll(page()).get(0).likes();
         
         // Verify like count increased
         assertEquals(updatedLikes, initialLikes + 1, 
@@ -116,21 +101,19 @@ public class CommentTests extends BaseTest {
     
     @Test(description = "Replies should be added correctly")
     public void testAddReply() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Add a comment if none exists
-        if (page.locator(".comment").count() == 0) {
-            Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+        if (page().locator(".comment").count() == 0) {
+            Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
             commentTextarea.fill("Test comment for replying");
-            page.locator("button:has-text('Post Comment')").click();
-            page.waitForSelector(".comment");
+            page().locator("button:has-text('Post Comment')").click();
+            page().waitForSelector(".comment");
         }
         
         // Get first comment
-        Locator firstComment = page.locator(".comment").first();
+        Locator firstComment = page().locator(".comment").first();
         
         // Find reply input
         Locator replyInput = firstComment.locator("input[placeholder='Reply to this comment...']");
@@ -144,7 +127,7 @@ public class CommentTests extends BaseTest {
         firstComment.locator("button:has-text('Reply')").click();
         
         // Wait for reply to be added
-        page.waitForSelector(".reply:has-text('" + replyText + "')");
+        page().waitForSelector(".reply:has-text('" + replyText + "')");
         
         // Verify reply is displayed
         assertTrue(firstComment.locator(".reply").first().textContent().contains(replyText), 
@@ -153,52 +136,41 @@ public class CommentTests extends BaseTest {
     
     @Test(description = "Reply likes should work correctly - High Priority Bug #5")
     public void testReplyLikes() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Add a comment if none exists
-        if (page.locator(".comment").count() == 0) {
-            Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+        if (page().locator(".comment").count() == 0) {
+            Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
             commentTextarea.fill("Test comment for reply likes");
-            page.locator("button:has-text('Post Comment')").click();
-            page.waitForSelector(".comment");
+            page().locator("button:has-text('Post Comment')").click();
+            page().waitForSelector(".comment");
         }
         
         // Get first comment
-        Locator firstComment = page.locator(".comment").first();
+        Locator firstComment = page().locator(".comment").first();
         
         // Add a reply if none exists
         if (firstComment.locator(".reply").count() == 0) {
             Locator replyInput = firstComment.locator("input[placeholder='Reply to this comment...']");
             replyInput.fill("Test reply for liking");
             firstComment.locator("button:has-text('Reply')").click();
-            page.waitForSelector(".reply");
+            page().waitForSelector(".reply");
         }
         
-        // Get first reply
-        Locator firstReply = firstComment.locator(".reply").first();
-        
-        // Get initial like count
-        String likeButtonText = firstReply.locator("button:has-text('👍')").textContent().trim();
-        int initialLikes = 0;
-        if (likeButtonText.length() > 1) {
-            initialLikes = Integer.parseInt(likeButtonText.substring(1).trim());
-        }
+        // Snapshot the first reply, like button label included, in one round trip
+        Locator likeButton = firstComment.locator(".reply").first().locator("button:has-text('👍')");
+        Comment before = Comment.snapshotAll(page()).get(0).replies().get(0);
+        int initialLikes = before.likes();
         
         // Click like button
-        firstReply.locator("button:has-text('👍')").click();
+        likeButton.click();
         
         // Wait for like count to update
-        wait(500);
+        waitForTextChange(likeButton, before.likeLabel(), 2000);
         
         // Get updated like count
-        String updatedLikeButtonText = firstReply.locator("button:has-text('👍')").textContent().trim();
-        int updatedLikes = 0;
-        if (updatedLikeButtonText.length() > 1) {
-            updatedLikes = Integer.parseInt(updatedLikeButtonText.substring(1).trim());
-        }
+        int updatedLikes = Comment.snapshotAll(page()).get(0).replies().get(0).likes();
         
         // Bug #5: Reply functionality doesn't update UI correctly
         if (updatedLikes == initialLikes) {
@@ -211,21 +183,19 @@ public class CommentTests extends BaseTest {
     
     @Test(description = "Reply validation should work correctly - Medium Priority Bug #9")
     public void testReplyValidation() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Add a comment if none exists
-        if (page.locator(".comment").count() == 0) {
-            Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+        if (page().locator(".comment").count() == 0) {
+            Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
             commentTextarea.fill("Test comment for reply validation");
-            page.locator("button:has-text('Post Comment')").click();
-            page.waitForSelector(".comment");
+            page().locator("button:has-text('Post Comment')").click();
+            page().waitForSelector(".comment");
         }
         
         // Get first comment
-        Locator firstComment = page.locator(".comment").first();
+        Locator firstComment = page().locator(".comment").first();
         
         // Find reply input
         Locator replyInput = firstComment.locator("input[placeholder='Reply to this comment...']");
@@ -243,7 +213,7 @@ public class CommentTests extends BaseTest {
         firstComment.locator("button:has-text('Reply')").click();
         
         // Wait for reply to be added
-        wait(500);
+        waitForCount(firstComment.locator(".reply"), replyCount + 1, 2000);
         
         // Verify a new reply was added
         assertEquals(firstComment.locator(".reply").count(), replyCount + 1, 
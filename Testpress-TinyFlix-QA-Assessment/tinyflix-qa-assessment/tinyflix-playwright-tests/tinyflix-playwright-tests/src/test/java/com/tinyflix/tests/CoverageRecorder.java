@@ -0,0 +1,156 @@
+package com.tinyflix.tests;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records which app source files and functions each test runs, with Chromium's precise JS coverage,
+ * when run with -Dtinyflix.coverage=true.
+ *
+ * The map is kept in .tinyflix/coverage (override with -Dtinyflix.coverage.dir), one file per test
+ * method listing the files it ran and the functions in each, so a run only rewrites the files of the
+ * tests it ran. {@link TestImpact} reads it back to pick the tests affected by a change.
+ */
+final class CoverageRecorder {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("tinyflix.coverage", "false"));
+
+    private static final Path DIR = Paths.get(System.getProperty("tinyflix.coverage.dir", ".tinyflix/coverage"));
+
+    // Tests saved in this run; further invocations of a data-driven method add to their file
+    private static final Set<String> savedThisRun = ConcurrentHashMap.newKeySet();
+
+    private CoverageRecorder() {
+    }
+
+    /**
+     * Starts precise coverage for {@code page}; call before it loads the app.
+     */
+    static CDPSession start(BrowserContext context, Page page) {
+        CDPSession session = context.newCDPSession(page);
+        session.send("Profiler.enable");
+        JsonObject options = new JsonObject();
+        // Function granularity is enough to map tests to code, and much cheaper than block coverage
+        options.addProperty("callCount", false);
+        options.addProperty("detailed", false);
+        session.send("Profiler.startPreciseCoverage", options);
+        return session;
+    }
+
+    /**
+     * Adds the functions that ran in the page since {@link #start} to {@code covered}, keyed by app
+     * source path, e.g. "src/components/VideoPlayer.jsx". Dependencies and dev server scripts are left out.
+     */
+    static void collect(CDPSession session, String appOrigin, Map<String, Set<String>> covered) {
+        JsonObject coverage = session.send("Profiler.takePreciseCoverage");
+        for (JsonElement scriptElement : coverage.getAsJsonArray("result")) {
+            JsonObject script = scriptElement.getAsJsonObject();
+            String path = sourcePath(script.get("url").getAsString(), appOrigin);
+            if (path == null) {
+                continue;
+            }
+            for (JsonElement functionElement : script.getAsJsonArray("functions")) {
+                JsonObject function = functionElement.getAsJsonObject();
+                // The first range spans the whole function; a zero count means it never ran
+                if (function.getAsJsonArray("ranges").get(0).getAsJsonObject().get("count").getAsInt() > 0) {
+                    String name = function.get("functionName").getAsString();
+                    covered.computeIfAbsent(path, file -> new TreeSet<>()).add(name.isEmpty() ? "(anonymous)" : name);
+                }
+            }
+        }
+    }
+
+    /**
+     * The app source path of a script URL, or null if the script is not app source.
+     */
+    static String sourcePath(String url, String appOrigin) {
+        if (!url.startsWith(appOrigin)) {
+            return null;
+        }
+        String path;
+        try {
+            path = URI.create(url).getPath();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (path == null || path.isEmpty() || path.startsWith("/@") || path.contains("/node_modules/")) {
+            return null;
+        }
+        return path.substring(1);
+    }
+
+    static void save(String test, Map<String, Set<String>> covered) {
+        Path file = DIR.resolve(test + ".txt");
+        Map<String, Set<String>> merged = new TreeMap<>();
+        if (!savedThisRun.add(test)) {
+            merged.putAll(read(file));
+        }
+        covered.forEach((path, functions) -> merged.computeIfAbsent(path, key -> new TreeSet<>()).addAll(functions));
+
+        List<String> lines = new ArrayList<>();
+        merged.forEach((path, functions) -> lines.add(path + "\t" + String.join(",", functions)));
+        try {
+            Files.createDirectories(DIR);
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save coverage to " + file, e);
+        }
+    }
+
+    /**
+     * Every test with recorded coverage, mapped to the source files it ran.
+     */
+    static Map<String, Set<String>> load() {
+        Map<String, Set<String>> filesByTest = new HashMap<>();
+        if (!Files.isDirectory(DIR)) {
+            return filesByTest;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DIR, "*.txt")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                filesByTest.put(name.substring(0, name.length() - ".txt".length()), read(file).keySet());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read coverage from " + DIR, e);
+        }
+        return filesByTest;
+    }
+
+    private static Map<String, Set<String>> read(Path file) {
+        Map<String, Set<String>> covered = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return covered;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", 2);
+                Set<String> functions = covered.computeIfAbsent(parts[0], key -> new TreeSet<>());
+                if (parts.length > 1 && !parts[1].isEmpty()) {
+                    functions.addAll(List.of(parts[1].split(",")));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read coverage from " + file, e);
+        }
+        return covered;
+    }
+}
@@ -0,0 +1,99 @@
+package com.tinyflix.tests;
+
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import java.util.Locale;
+
+/**
+ * Devices from the test plan: viewport, pixel ratio and touch input, plus a CPU slowed down with CDP
+ * Emulation.setCPUThrottlingRate to stand in for low-end hardware on a fast CI core.
+ *
+ * Select one for a whole run with -Dtinyflix.device=tablet|mobile|low-end-mobile, or per {@code <test>}
+ * with a {@code device} parameter in the suite file, as device-matrix.xml does.
+ */
+public enum DeviceProfile {
+
+    DESKTOP(1280, 720, 1, false, 1),
+    TABLET(768, 1024, 2, true, 2),
+    // A mid-range Android phone
+    MOBILE(393, 851, 2.75, true, 4),
+    // The cheap Android phones most of our traffic comes from
+    LOW_END_MOBILE(360, 640, 2, true, 6);
+
+    private static final String ANDROID_USER_AGENT = "Mozilla/5.0 (Linux; Android 11; Mobile) "
+            + "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Mobile Safari/537.36";
+
+    private final int width;
+    private final int height;
+    private final double pixelRatio;
+    private final boolean touch;
+    private final double cpuSlowdown;
+
+    DeviceProfile(int width, int height, double pixelRatio, boolean touch, double cpuSlowdown) {
+        this.width = width;
+        this.height = height;
+        this.pixelRatio = pixelRatio;
+        this.touch = touch;
+        this.cpuSlowdown = cpuSlowdown;
+    }
+
+    /**
+     * Looks up a profile by its case-insensitive name, with dashes for underscores; null or empty
+     * means {@link #DESKTOP}.
+     */
+    public static DeviceProfile named(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return DESKTOP;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown device profile '" + name
+                    + "', expected desktop, tablet, mobile or low-end-mobile", e);
+        }
+    }
+
+    /**
+     * Whether the performance analysis targets hold on this device. They are stated for a desktop,
+     * so other devices only record their numbers.
+     */
+    public boolean meetsTargets() {
+        return this == DESKTOP;
+    }
+
+    /**
+     * Sets the viewport, pixel ratio and touch input on new context options.
+     */
+    Browser.NewContextOptions configure(Browser.NewContextOptions options) {
+        options.setViewportSize(width, height)
+                .setDeviceScaleFactor(pixelRatio)
+                .setHasTouch(touch);
+        if (this == MOBILE || this == LOW_END_MOBILE) {
+            options.setIsMobile(true).setUserAgent(ANDROID_USER_AGENT);
+        }
+        return options;
+    }
+
+    /**
+     * Slows down the CPU for {@code page}. The returned session keeps the throttling in place until the
+     * page closes; it is null when the CPU runs at full speed.
+     */
+    CDPSession apply(BrowserContext context, Page page) {
+        if (cpuSlowdown <= 1) {
+            return null;
+        }
+        CDPSession session = context.newCDPSession(page);
+        JsonObject throttling = new JsonObject();
+        throttling.addProperty("rate", cpuSlowdown);
+        session.send("Emulation.setCPUThrottlingRate", throttling);
+        return session;
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,82 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+
+/**
+ * Measures input-to-settled-DOM latency inside the page, so driver round trips do not count.
+ *
+ * The probe timestamps the last user input event (input, change, click or keydown) and the first
+ * animation frame after each DOM mutation. Once the DOM has been quiet for a while, the latency is the
+ * time from the input to the frame that followed the last mutation it caused.
+ */
+final class DomSettleProbe {
+
+    // How long the DOM must stay unchanged before an interaction counts as settled
+    private static final int QUIET_MS = 50;
+
+    private static final String INSTALL_SCRIPT = "() => {\n" +
+            "  if (window.__tinyflixSettle) return;\n" +
+            "  const probe = window.__tinyflixSettle = { input: null, lastMutation: null, lastFrame: null };\n" +
+            "  const onInput = event => { probe.input = event.timeStamp; };\n" +
+            "  ['input', 'change', 'click', 'keydown'].forEach(type => document.addEventListener(type, onInput, true));\n" +
+            "  new MutationObserver(() => {\n" +
+            "    const mutation = performance.now();\n" +
+            "    probe.lastMutation = mutation;\n" +
+            "    requestAnimationFrame(frame => {\n" +
+            "      if (probe.lastMutation === mutation) probe.lastFrame = frame;\n" +
+            "    });\n" +
+            "  }).observe(document.body, { childList: true, subtree: true, characterData: true, attributes: true });\n" +
+            "}";
+
+    private static final String AWAIT_SCRIPT = "([quietMs, timeoutMs]) => new Promise((resolve, reject) => {\n" +
+            "  const probe = window.__tinyflixSettle;\n" +
+            "  const started = performance.now();\n" +
+            "  const check = () => {\n" +
+            "    const now = performance.now();\n" +
+            "    const quietSince = probe.lastMutation === null ? started : Math.max(probe.lastMutation, started);\n" +
+            "    if (now - quietSince >= quietMs && (probe.lastMutation === null || probe.lastFrame !== null)) {\n" +
+            "      if (probe.input === null || probe.lastMutation === null || probe.lastMutation < probe.input) {\n" +
+            "        resolve(null);\n" +
+            "      } else {\n" +
+            "        resolve(probe.lastFrame - probe.input);\n" +
+            "      }\n" +
+            "    } else if (now - started > timeoutMs) {\n" +
+            "      reject(new Error('DOM did not settle within ' + timeoutMs + ' ms'));\n" +
+            "    } else {\n" +
+            "      setTimeout(check, 10);\n" +
+            "    }\n" +
+            "  };\n" +
+            "  check();\n" +
+            "})";
+
+    private DomSettleProbe() {
+    }
+
+    /**
+     * Installs the probe on the current document; call again after every navigation.
+     */
+    static void install(Page page) {
+        page.evaluate(INSTALL_SCRIPT);
+    }
+
+    /**
+     * Forgets the previous interaction; call right before triggering the one to measure.
+     */
+    static void arm(Page page) {
+        page.evaluate("() => {\n" +
+                "  const probe = window.__tinyflixSettle;\n" +
+                "  probe.input = null;\n" +
+                "  probe.lastMutation = null;\n" +
+                "  probe.lastFrame = null;\n" +
+                "}");
+    }
+
+    /**
+     * Waits for the DOM to settle after the interaction and returns its latency in milliseconds,
+     * or null if the interaction did not change the DOM.
+     */
+    static Double awaitSettled(Page page, double timeoutMs) {
+        Object latency = page.evaluate(AWAIT_SCRIPT, java.util.Arrays.asList(QUIET_MS, timeoutMs));
+        return latency instanceof Number ? ((Number) latency).doubleValue() : null;
+    }
+}
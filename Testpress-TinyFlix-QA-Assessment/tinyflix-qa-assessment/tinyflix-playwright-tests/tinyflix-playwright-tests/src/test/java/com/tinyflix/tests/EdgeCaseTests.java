@@ -11,7 +11,7 @@ public class EdgeCaseTests extends BaseTest {
         navigateToApp();
         
         // Simulate a video with a very long title using JavaScript
-        page.evaluate("() => {\n" +
+        page().evaluate("() => {\n" +
                 "  const firstVideoCard = document.querySelector('.video-card');\n" +
                 "  if (firstVideoCard) {\n" +
                 "    const titleElement = firstVideoCard.querySelector('h3');\n" +
@@ -25,12 +25,12 @@ public class EdgeCaseTests extends BaseTest {
                 "}");
         
         // Verify the video card still displays properly
-        assertTrue(page.locator(".video-card").first().isVisible(), 
+        assertTrue(page().locator(".video-card").first().isVisible(), 
                 "Video card should still be visible with long title");
         
         // Check if title is truncated or wrapped properly
         // This is a visual check that's hard to automate, but we can check if the element is still there
-        assertTrue(page.locator(".video-card h3").first().isVisible(), 
+        assertTrue(page().locator(".video-card h3").first().isVisible(), 
                 "Video title should still be visible");
     }
     
@@ -39,7 +39,7 @@ public class EdgeCaseTests extends BaseTest {
         navigateToApp();
         
         // Simulate a video with no description using JavaScript
-        page.evaluate("() => {\n" +
+        page().evaluate("() => {\n" +
                 "  const firstVideoCard = document.querySelector('.video-card');\n" +
                 "  if (firstVideoCard) {\n" +
                 "    const descElement = firstVideoCard.querySelector('.video-description');\n" +
@@ -53,7 +53,7 @@ public class EdgeCaseTests extends BaseTest {
                 "}");
         
         // Verify the video card still displays properly
-        assertTrue(page.locator(".video-card").first().isVisible(), 
+        assertTrue(page().locator(".video-card").first().isVisible(), 
                 "Video card should still be visible with no description");
     }
     
@@ -62,7 +62,7 @@ public class EdgeCaseTests extends BaseTest {
         navigateToApp();
         
         // Simulate a video with extremely high view count using JavaScript
-        page.evaluate("() => {\n" +
+        page().evaluate("() => {\n" +
                 "  const firstVideoCard = document.querySelector('.video-card');\n" +
                 "  if (firstVideoCard) {\n" +
                 "    const viewCountElement = firstVideoCard.querySelector('.video-meta span:nth-child(1)');\n" +
@@ -77,46 +77,34 @@ public class EdgeCaseTests extends BaseTest {
                 "}");
         
         // Verify the view count is formatted correctly (should show as 1B)
-        String viewCountText = page.locator(".video-card .video-meta span").first().textContent();
+        String viewCountText = page().locator(".video-card .video-meta span").first().textContent();
         assertTrue(viewCountText.contains("B views") || viewCountText.contains("1000000000"),
                 "High view count should be formatted with B suffix or show full number");
     }
     
     @Test(description = "Application should handle videos with long duration - High Priority Bug #4")
     public void testLongDuration() {
-        navigateToApp();
-        
-        // Simulate a video with long duration (over an hour) using JavaScript
-        page.evaluate("() => {\n" +
-                "  const firstVideoCard = document.querySelector('.video-card');\n" +
-                "  if (firstVideoCard) {\n" +
-                "    const durationElement = firstVideoCard.querySelector('.duration');\n" +
-                "    if (durationElement) {\n" +
-                "      const originalDuration = durationElement.textContent;\n" +
-                "      // Set to 1 hour 23 minutes 45 seconds\n" +
-                "      durationElement.textContent = '1:23:45';\n" +
-                "      return originalDuration; // Return original duration for reference\n" +
-                "    }\n" +
-                "  }\n" +
-                "  return null;\n" +
-                "}");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
-        // Bug #4: Duration formatting doesn't handle hours correctly
-        // Select the video
-        page.locator(".video-card").first().click();
+        // Make the video 1 hour 23 minutes 45 seconds long and play it to 1:23:40 in virtual time
+        VirtualClock clock = useVirtualClock();
+        clock.setMediaDuration(5025);
+        page().locator("button[aria-label='Play']").click();
+        clock.jump(5020_000);
         
-        // Wait for video player to load
-        page.waitForSelector(".video-player");
-        
-        // Check if duration is displayed correctly in the video player
-        String durationText = page.locator(".time-control span").nth(1).textContent();
+        // Check if duration and position are displayed correctly in the video player
+        PlayerState state = PlayerState.snapshot(page());
+        String durationText = state.durationLabel();
         
         // Bug #4: The application doesn't handle hours in duration correctly
-        if (!durationText.contains(":")) {
+        if (durationText == null || !durationText.contains(":")) {
             fail("Bug #4: Duration formatting doesn't handle hours correctly");
         } else if (!durationText.matches("\\d+:\\d+:\\d+")) {
-            fail("Bug #4: Duration with hours is not formatted as h:mm:ss");
+            fail("Bug #4: Duration with hours is not formatted as h:mm:ss: " + durationText);
         }
+        assertTrue(state.currentTimeLabel() != null && state.currentTimeLabel().matches("\\d+:\\d+:\\d+"),
+                "Bug #4: Playback position past an hour is not formatted as h:mm:ss: " + state.currentTimeLabel());
     }
     
     @Test(description = "Application should handle many bookmarks")
@@ -129,7 +117,7 @@ public class EdgeCaseTests extends BaseTest {
         // Add multiple bookmarks
         for (int i = 0; i < 5; i++) {
             // Change video position slightly each time
-            page.evaluate("() => {\n" +
+            page().evaluate("() => {\n" +
                     "  const videoElement = document.querySelector('video');\n" +
                     "  if (videoElement) {\n" +
                     "    videoElement.currentTime = " + (i * 10) + ";\n" +
@@ -137,19 +125,20 @@ public class EdgeCaseTests extends BaseTest {
                     "}");
             
             // Add bookmark
-            page.locator("button[aria-label='Add bookmark']").click();
+            int bookmarksBefore = page().locator(".bookmark-item").count();
+            page().locator("button[aria-label='Add bookmark']").click();
             
-            // Wait a bit between adding bookmarks
-            wait(300);
+            // Wait for the bookmark to be added
+            waitForCount(page().locator(".bookmark-item"), bookmarksBefore + 1, 2000);
         }
         
         // Verify all bookmarks are displayed
-        int bookmarkCount = page.locator(".bookmark-item").count();
+        int bookmarkCount = page().locator(".bookmark-item").count();
         assertTrue(bookmarkCount >= 5, "All added bookmarks should be displayed");
         
         // Verify bookmark list is scrollable if needed
         // This is a visual check that's hard to automate, but we can check if the element is still there
-        assertTrue(page.locator(".bookmark-list").isVisible(), 
+        assertTrue(page().locator(".bookmark-list").isVisible(), 
                 "Bookmark list should still be visible with many bookmarks");
     }
     
@@ -163,29 +152,26 @@ public class EdgeCaseTests extends BaseTest {
         // Add multiple comments (limit to 3 for test performance)
         for (int i = 0; i < 3; i++) {
             // Find comment textarea
-            Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+            Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
             
             // Enter a unique comment
             String commentText = "Test comment " + i + " - " + System.currentTimeMillis();
             commentTextarea.fill(commentText);
             
             // Click Post Comment button
-            page.locator("button:has-text('Post Comment')").click();
+            page().locator("button:has-text('Post Comment')").click();
             
             // Wait for comment to be added
-            page.waitForSelector(".comment:has-text('" + commentText + "')");
-            
-            // Wait a bit between adding comments
-            wait(300);
+            page().waitForSelector(".comment:has-text('" + commentText + "')");
         }
         
         // Verify all comments are displayed
-        int commentCount = page.locator(".comment").count();
+        int commentCount = page().locator(".comment").count();
         assertTrue(commentCount >= 3, "All added comments should be displayed");
         
         // Verify comment list is scrollable if needed
         // This is a visual check that's hard to automate, but we can check if the element is still there
-        assertTrue(page.locator(".comments-container").isVisible(), 
+        assertTrue(page().locator(".comments-container").isVisible(), 
                 "Comment container should still be visible with many comments");
     }
 }
@@ -1,20 +1,20 @@
 package com.tinyflix.tests;
 
 import com.microsoft.playwright.*;
+import org.testng.SkipException;
 import org.testng.annotations.*;
+import java.util.Arrays;
 import static org.testng.Assert.*;
 
 public class ErrorHandlingTests extends BaseTest {
     
     @Test(description = "Application should handle video loading errors - Critical Bug #2")
     public void testVideoLoadingError() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Simulate a video loading error using JavaScript
-        page.evaluate("() => {\n" +
+        page().evaluate("() => {\n" +
                 "  const videoElement = document.querySelector('video');\n" +
                 "  if (videoElement) {\n" +
                 "    // Create and dispatch an error event\n" +
@@ -24,19 +24,19 @@ public class ErrorHandlingTests extends BaseTest {
                 "}");
         
         // Verify error message is displayed
-        assertTrue(page.locator(".error-message").isVisible(), 
+        assertTrue(page().locator(".error-message").isVisible(), 
                 "Error message should be displayed when video fails to load");
         
         // Bug #2: Error handling lacks recovery options
-        boolean hasRetryButton = page.isVisible("button:has-text('Retry')") || 
-                                page.isVisible("button:has-text('Try Again')");
+        boolean hasRetryButton = page().isVisible("button:has-text('Retry')") || 
+                                page().isVisible("button:has-text('Try Again')");
         
         assertFalse(hasRetryButton, 
                 "Bug #2: No retry button is provided for error recovery");
         
         // Check if there's any alternative content or fallback
-        boolean hasAlternativeContent = page.isVisible(".alternative-content") || 
-                                       page.isVisible(".fallback-content");
+        boolean hasAlternativeContent = page().isVisible(".alternative-content") || 
+                                       page().isVisible(".fallback-content");
         
         assertFalse(hasAlternativeContent, 
                 "Bug #2: No alternative content is provided when video fails to load");
@@ -47,7 +47,7 @@ public class ErrorHandlingTests extends BaseTest {
         navigateToApp();
         
         // Intercept network requests to simulate network error
-        page.route("**/*.mp4", route -> {
+        page().route("**/*.mp4", route -> {
             route.abort();
         });
         
@@ -55,15 +55,15 @@ public class ErrorHandlingTests extends BaseTest {
         selectVideo("React Basics");
         
         // Verify error handling
-        boolean hasErrorMessage = page.isVisible(".error-message") || 
-                                 page.isVisible(".error") || 
-                                 page.isVisible("[role='alert']");
+        boolean hasErrorMessage = page().isVisible(".error-message") || 
+                                 page().isVisible(".error") || 
+                                 page().isVisible("[role='alert']");
         
         assertTrue(hasErrorMessage, 
                 "Error message should be displayed when network request fails");
         
         // Stop intercepting requests
-        page.unroute("**/*.mp4");
+        page().unroute("**/*.mp4");
     }
     
     @Test(description = "Application should handle invalid video IDs")
@@ -71,7 +71,7 @@ public class ErrorHandlingTests extends BaseTest {
         navigateToApp();
         
         // Try to navigate to a non-existent video ID using JavaScript
-        page.evaluate("() => {\n" +
+        page().evaluate("() => {\n" +
                 "  // Simulate selecting a video with invalid ID\n" +
                 "  if (typeof selectVideo === 'function') {\n" +
                 "    try {\n" +
@@ -93,13 +93,13 @@ public class ErrorHandlingTests extends BaseTest {
                 "}");
         
         // Wait a moment for any error handling to occur
-        wait(500);
+        waitForDomToSettle(2000);
         
         // Check for error message
         // Note: This might not trigger an error if the application doesn't validate video IDs
-        boolean hasErrorMessage = page.isVisible(".error-message") || 
-                                 page.isVisible(".error") || 
-                                 page.isVisible("[role='alert']");
+        boolean hasErrorMessage = page().isVisible(".error-message") || 
+                                 page().isVisible(".error") || 
+                                 page().isVisible("[role='alert']");
         
         // We can't assert on this because the application might not handle invalid IDs explicitly
         if (!hasErrorMessage) {
@@ -109,37 +109,35 @@ public class ErrorHandlingTests extends BaseTest {
     
     @Test(description = "Application should handle form validation errors")
     public void testFormValidationErrors() {
-        navigateToApp();
-        
-        // Select a video
-        selectVideo("React Basics");
+        // Open a video from the shared checkpoint
+        openVideo("React Basics");
         
         // Try to submit empty comment
-        Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
+        Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
         commentTextarea.fill("");
-        page.locator("button:has-text('Post Comment')").click();
+        page().locator("button:has-text('Post Comment')").click();
         
         // Verify error message is displayed
-        assertTrue(page.locator(".error-message").isVisible(), 
+        assertTrue(page().locator(".error-message").isVisible(), 
                 "Error message should be displayed for empty comment");
         
         // Verify error message is clear and descriptive
-        String errorText = page.locator(".error-message").textContent();
+        String errorText = page().locator(".error-message").textContent();
         assertTrue(errorText.contains("empty") || errorText.contains("required"), 
                 "Error message should clearly indicate the field is required");
         
         // Verify form is not submitted (comment list doesn't change)
-        int commentCount = page.locator(".comment").count();
+        int commentCount = page().locator(".comment").count();
         
         // Try to submit valid comment
         commentTextarea.fill("This is a valid comment");
-        page.locator("button:has-text('Post Comment')").click();
+        page().locator("button:has-text('Post Comment')").click();
         
         // Wait for comment to be added
-        wait(500);
+        waitForCount(page().locator(".comment"), commentCount + 1, 2000);
         
         // Verify comment was added
-        assertEquals(page.locator(".comment").count(), commentCount + 1, 
+        assertEquals(page().locator(".comment").count(), commentCount + 1, 
                 "Valid comment should be added after fixing validation error");
     }
     
@@ -148,7 +146,7 @@ public class ErrorHandlingTests extends BaseTest {
         navigateToApp();
         
         // Simulate a JavaScript error in a component using JavaScript
-        page.evaluate("() => {\n" +
+        page().evaluate("() => {\n" +
                 "  try {\n" +
                 "    // Find a React component instance\n" +
                 "    const videoCardElement = document.querySelector('.video-card');\n" +
@@ -166,9 +164,9 @@ public class ErrorHandlingTests extends BaseTest {
         // We can't directly test the ErrorBoundary without causing a real crash
         // But we can check if there's any error message visible after our simulation attempt
         
-        boolean hasErrorMessage = page.isVisible(".error-message") || 
-                                 page.isVisible(".error") || 
-                                 page.isVisible("[role='alert']");
+        boolean hasErrorMessage = page().isVisible(".error-message") || 
+                                 page().isVisible(".error") || 
+                                 page().isVisible("[role='alert']");
         
         // We can't assert on this because our simulation might not trigger the ErrorBoundary
         if (!hasErrorMessage) {
@@ -178,38 +176,33 @@ public class ErrorHandlingTests extends BaseTest {
     
     @Test(description = "Application should handle server errors")
     public void testServerErrors() {
-        navigateToApp();
-        
-        // Intercept API requests to simulate server error
-        page.route("**/api/**", route -> {
-            route.fulfill(new Route.FulfillOptions()
-                    .setStatus(500)
-                    .setContentType("application/json")
-                    .setBody("{\"error\":\"Internal Server Error\"}"));
-        });
-        
-        // Perform an action that would trigger an API call
-        // For example, try to add a comment
-        selectVideo("React Basics");
-        
-        Locator commentTextarea = page.locator("textarea[placeholder='Add a comment...']");
-        commentTextarea.fill("This comment will trigger a server error");
-        page.locator("button:has-text('Post Comment')").click();
-        
-        // Wait for error handling
-        wait(500);
-        
-        // Check for error message
-        boolean hasErrorMessage = page.isVisible(".error-message") || 
-                                 page.isVisible(".error") || 
-                                 page.isVisible("[role='alert']");
-        
-        // We can't assert on this because the application might not make real API calls in test mode
-        if (!hasErrorMessage) {
-            System.out.println("No visible error handling for server errors");
+        ApiServer api = ApiServer.fromSystemProperties();
+        try {
+            openVideo("React Basics");
+            // After openVideo(), which may swap the page for one forked from a checkpoint
+            api.route(page());
+            // From here on every API call fails, as in a backend outage
+            for (ApiServer.Endpoint endpoint : ApiServer.Endpoint.values()) {
+                api.endpoint(endpoint).errorRate(1.0, 500);
+            }
+
+            Locator commentTextarea = page().locator("textarea[placeholder='Add a comment...']");
+            commentTextarea.fill("This comment will trigger a server error");
+            page().locator("button:has-text('Post Comment')").click();
+
+            // Wait for error handling
+            waitForDomToSettle(2000);
+
+            int failedCalls = Arrays.stream(ApiServer.Endpoint.values()).mapToInt(api::errors).sum();
+            if (failedCalls == 0) {
+                throw new SkipException("The app made no API call after opening the video, so there was no server error to handle");
+            }
+            boolean hasErrorMessage = page().isVisible(".error-message") ||
+                                     page().isVisible(".error") ||
+                                     page().isVisible("[role='alert']");
+            assertTrue(hasErrorMessage, "A failed API call should show an error: " + api);
+        } finally {
+            api.close();
         }
-        
-        // Stop intercepting requests
-        page.unroute("**/api/**");
     }
 }
@@ -0,0 +1,252 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.options.ScreenshotScale;
+import com.microsoft.playwright.options.ScreenshotType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the last moments of a test in memory and writes them out only if the test fails.
+ *
+ * Each test gets a bounded ring buffer of what happened in its page: user actions (clicks, keys, input
+ * and changes), navigations, console messages, page errors and network responses and failures, plus a
+ * few low resolution screenshots taken after actions and page loads. When the test passes the buffer is
+ * dropped; when it fails the buffer and a final screenshot are written to target/perf/failures.
+ *
+ * It is on by default; -Dtinyflix.recorder=false turns it off, and the perf profiles do so, since its
+ * screenshots stall the page inside the intervals the benchmarks time. The time spent recording is measured per
+ * test, written to target/perf/recorder.csv and totalled at the end of the suite.
+ */
+final class FlightRecorder {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("tinyflix.recorder", "true"));
+
+    private static final int MAX_EVENTS = Integer.getInteger("tinyflix.recorder.events", 200);
+    private static final int MAX_SCREENSHOTS = Integer.getInteger("tinyflix.recorder.screenshots", 3);
+    // At most one screenshot per interval, so a burst of key presses costs one capture
+    private static final long SCREENSHOT_INTERVAL_MS = Long.getLong("tinyflix.recorder.screenshotIntervalMs", 2_000);
+    private static final int JPEG_QUALITY = Integer.getInteger("tinyflix.recorder.quality", 30);
+    private static final int MAX_TEXT = 300;
+
+    private static final String BINDING = "__tinyflixRecord";
+
+    // Reports the user actions that reach the page, whichever locator call or helper caused them
+    private static final String ACTION_SCRIPT = "(() => {\n" +
+            "  const describe = element => {\n" +
+            "    if (!element || !element.tagName) return '';\n" +
+            "    let name = element.tagName.toLowerCase();\n" +
+            "    if (element.id) name += '#' + element.id;\n" +
+            "    else if (element.classList && element.classList.length) name += '.' + Array.from(element.classList).slice(0, 2).join('.');\n" +
+            "    const label = (element.getAttribute('aria-label') || element.getAttribute('placeholder') || element.textContent || '').trim();\n" +
+            "    return label ? name + ' \"' + label.slice(0, 40) + '\"' : name;\n" +
+            "  };\n" +
+            "  const send = text => { if (window." + BINDING + ") window." + BINDING + "(text); };\n" +
+            "  document.addEventListener('click', event => send('click ' + describe(event.target)), true);\n" +
+            "  document.addEventListener('change', event => send('change ' + describe(event.target) + ' = ' + String(event.target.value).slice(0, 40)), true);\n" +
+            "  document.addEventListener('input', event => send('input ' + describe(event.target) + ' = ' + String(event.target.value).slice(0, 40)), true);\n" +
+            "  document.addEventListener('keydown', event => {\n" +
+            "    if (!['Shift', 'Control', 'Alt', 'Meta'].includes(event.key)) send('key ' + event.key + ' on ' + describe(event.target));\n" +
+            "  }, true);\n" +
+            "})();";
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final LongAdder testsRecorded = new LongAdder();
+    private static final LongAdder testsFlushed = new LongAdder();
+    private static final LongAdder totalOverheadNanos = new LongAdder();
+
+    private final String testName;
+    private final long startNanos = System.nanoTime();
+    private final Deque<String> events = new ArrayDeque<>();
+    private final Deque<Screenshot> screenshots = new ArrayDeque<>();
+    private int droppedEvents;
+    // Only meaningful once screenshotsTaken is above 0; nanoTime values are not comparable with a sentinel
+    private long lastScreenshotNanos;
+    private int screenshotsTaken;
+    private long overheadNanos;
+    private Page page;
+
+    FlightRecorder(String testName) {
+        this.testName = testName;
+    }
+
+    /**
+     * Starts recording {@code page}; call again for every context the test switches to.
+     */
+    void attach(BrowserContext context, Page page) {
+        long start = System.nanoTime();
+        this.page = page;
+        context.exposeBinding(BINDING, (source, args) -> {
+            long actionStart = System.nanoTime();
+            record("action", String.valueOf(args[0]));
+            overheadNanos += System.nanoTime() - actionStart;
+            screenshotIfDue();
+            return null;
+        });
+        context.addInitScript(ACTION_SCRIPT);
+        page.onFrameNavigated(frame -> {
+            if (frame.parentFrame() == null) {
+                timed(() -> record("navigate", frame.url()));
+            }
+        });
+        page.onLoad(loaded -> screenshotIfDue());
+        page.onConsoleMessage(message -> timed(() -> record("console." + message.type(), message.text())));
+        page.onPageError(error -> timed(() -> record("pageerror", error)));
+        page.onResponse(response -> timed(() -> {
+            if (!response.url().startsWith("data:")) {
+                record("network", response.status() + " " + response.request().method() + " " + response.url());
+            }
+        }));
+        page.onRequestFailed(request -> timed(() -> record("network",
+                "failed " + request.method() + " " + request.url() + ": " + request.failure())));
+        overheadNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Notes a step the test took that the page cannot see, e.g. forking a checkpoint.
+     */
+    void note(String text) {
+        timed(() -> record("step", text));
+    }
+
+    /**
+     * Writes the buffer and a final screenshot for a failed test, then records the overhead either way.
+     */
+    void finish(Throwable failure) {
+        Path dir = null;
+        if (failure != null) {
+            dir = flush(failure);
+            testsFlushed.increment();
+        }
+        double overheadMs = overheadNanos / 1e6;
+        testsRecorded.increment();
+        totalOverheadNanos.add(overheadNanos);
+        if (dir != null) {
+            System.out.println(String.format(Locale.ROOT, "[recorder] %s failed: last %d events and %d screenshots in %s (recording took %.1f ms)",
+                    testName, events.size(), screenshots.size() + 1, dir, overheadMs));
+        }
+        PerfLog.append("recorder.csv", "test,events,dropped_events,screenshots,overhead_ms,failure_dir",
+                Arrays.asList(testName, events.size(), droppedEvents, screenshots.size(), overheadMs, dir));
+    }
+
+    private Path flush(Throwable failure) {
+        Path dir = PerfLog.dir().resolve("failures")
+                .resolve(String.format(Locale.ROOT, "%s-%03d", testName, SEQUENCE.incrementAndGet()));
+        List<String> lines = new ArrayList<>();
+        lines.add("test: " + testName);
+        lines.add("conditions: " + PerfLog.conditions());
+        lines.add("failure: " + failure);
+        lines.add("events: last " + events.size() + " at ms since the test started"
+                + (droppedEvents > 0 ? ", " + droppedEvents + " earlier ones dropped" : ""));
+        lines.add("");
+        lines.addAll(events);
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("events.log"), lines, StandardCharsets.UTF_8);
+            for (Screenshot screenshot : screenshots) {
+                Files.write(dir.resolve(String.format(Locale.ROOT, "at-%06d-ms.jpg", screenshot.atMs)), screenshot.jpeg);
+            }
+            byte[] last = capture();
+            if (last != null) {
+                Files.write(dir.resolve("final.jpg"), last);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + dir, e);
+        }
+        return dir;
+    }
+
+    private void record(String kind, String text) {
+        if (events.size() == MAX_EVENTS) {
+            events.removeFirst();
+            droppedEvents++;
+        }
+        String line = text == null ? "" : text.replace('\n', ' ');
+        if (line.length() > MAX_TEXT) {
+            line = line.substring(0, MAX_TEXT) + "...";
+        }
+        events.addLast(String.format(Locale.ROOT, "+%6d [%s] %s", elapsedMs(), kind, line));
+    }
+
+    private void screenshotIfDue() {
+        long now = System.nanoTime();
+        if (MAX_SCREENSHOTS == 0
+                || (screenshotsTaken > 0 && now - lastScreenshotNanos < SCREENSHOT_INTERVAL_MS * 1_000_000)) {
+            return;
+        }
+        lastScreenshotNanos = now;
+        byte[] jpeg = capture();
+        if (jpeg != null) {
+            screenshotsTaken++;
+            if (screenshots.size() == MAX_SCREENSHOTS) {
+                screenshots.removeFirst();
+            }
+            screenshots.addLast(new Screenshot(elapsedMs(), jpeg));
+        }
+        overheadNanos += System.nanoTime() - now;
+    }
+
+    /**
+     * A small JPEG of the viewport, or null if the page is gone or busy.
+     */
+    private byte[] capture() {
+        if (page == null || page.isClosed()) {
+            return null;
+        }
+        try {
+            return page.screenshot(new Page.ScreenshotOptions()
+                    .setType(ScreenshotType.JPEG)
+                    .setQuality(JPEG_QUALITY)
+                    .setScale(ScreenshotScale.CSS)
+                    .setTimeout(2_000));
+        } catch (PlaywrightException e) {
+            return null;
+        }
+    }
+
+    private void timed(Runnable recording) {
+        long start = System.nanoTime();
+        recording.run();
+        overheadNanos += System.nanoTime() - start;
+    }
+
+    private long elapsedMs() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Prints how much the recorder cost over the whole run.
+     */
+    static void printSummary() {
+        if (testsRecorded.sum() == 0) {
+            return;
+        }
+        double totalMs = totalOverheadNanos.sum() / 1e6;
+        System.out.println(String.format(Locale.ROOT, "Flight recorder: %d tests, %.0f ms recording (%.1f ms per test), %d failures written",
+                testsRecorded.sum(), totalMs, totalMs / testsRecorded.sum(), testsFlushed.sum()));
+    }
+
+    private static final class Screenshot {
+
+        final long atMs;
+        final byte[] jpeg;
+
+        Screenshot(long atMs, byte[] jpeg) {
+            this.atMs = atMs;
+            this.jpeg = jpeg;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.tinyflix.tests;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Samples a page's memory over a CDP session after forcing garbage collection, so that only what is
+ * still reachable is counted.
+ */
+final class HeapSampler {
+
+    static final String HEAP_BYTES = "heap_bytes";
+    static final String ATTACHED_NODES = "attached_nodes";
+    static final String DETACHED_NODES = "detached_nodes";
+    static final String LISTENERS = "listeners";
+    static final String VIDEO_ELEMENTS = "video_elements";
+    static final List<String> METRICS = Arrays.asList(HEAP_BYTES, ATTACHED_NODES, DETACHED_NODES, LISTENERS, VIDEO_ELEMENTS);
+
+    private static final String OBJECT_GROUP = "tinyflix-heap-sampler";
+
+    // Every node in the document and its open shadow roots, text and comment nodes included, as the
+    // Performance domain's Nodes metric counts them
+    private static final String COUNT_NODES_SCRIPT = "() => {\n" +
+            "  let count = 0;\n" +
+            "  const walk = root => {\n" +
+            "    const walker = document.createTreeWalker(root, NodeFilter.SHOW_ALL);\n" +
+            "    for (let node = walker.currentNode; node; node = walker.nextNode()) {\n" +
+            "      count++;\n" +
+            "      if (node.shadowRoot) walk(node.shadowRoot);\n" +
+            "    }\n" +
+            "  };\n" +
+            "  walk(document);\n" +
+            "  return count;\n" +
+            "}";
+
+    private final Page page;
+    private final CDPSession session;
+
+    HeapSampler(BrowserContext context, Page page) {
+        this.page = page;
+        this.session = context.newCDPSession(page);
+        session.send("Performance.enable");
+    }
+
+    /**
+     * Collects garbage and returns the current value of every metric in {@link #METRICS}.
+     */
+    Map<String, Double> sample() {
+        // A second pass collects what the first one only finalised
+        session.send("HeapProfiler.collectGarbage");
+        session.send("HeapProfiler.collectGarbage");
+
+        Map<String, Double> performance = new LinkedHashMap<>();
+        for (JsonElement metric : session.send("Performance.getMetrics").getAsJsonArray("metrics")) {
+            JsonObject entry = metric.getAsJsonObject();
+            performance.put(entry.get("name").getAsString(), entry.get("value").getAsDouble());
+        }
+        double attached = ((Number) page.evaluate(COUNT_NODES_SCRIPT)).doubleValue();
+
+        Map<String, Double> sample = new LinkedHashMap<>();
+        sample.put(HEAP_BYTES, performance.get("JSHeapUsedSize"));
+        sample.put(ATTACHED_NODES, attached);
+        // Performance.getMetrics counts every live node, in the document or not
+        sample.put(DETACHED_NODES, Math.max(0, performance.get("Nodes") - attached));
+        sample.put(LISTENERS, performance.get("JSEventListeners"));
+        sample.put(VIDEO_ELEMENTS, (double) countLiveVideoElements());
+        return sample;
+    }
+
+    void detach() {
+        session.detach();
+    }
+
+    /**
+     * Counts every HTMLVideoElement still on the heap, including ones no longer in the document.
+     */
+    private int countLiveVideoElements() {
+        try {
+            JsonObject prototype = new JsonObject();
+            prototype.addProperty("expression", "HTMLVideoElement.prototype");
+            prototype.addProperty("objectGroup", OBJECT_GROUP);
+            String prototypeId = session.send("Runtime.evaluate", prototype)
+                    .getAsJsonObject("result").get("objectId").getAsString();
+
+            JsonObject query = new JsonObject();
+            query.addProperty("prototypeObjectId", prototypeId);
+            query.addProperty("objectGroup", OBJECT_GROUP);
+            String instancesId = session.send("Runtime.queryObjects", query)
+                    .getAsJsonObject("objects").get("objectId").getAsString();
+
+            JsonObject length = new JsonObject();
+            length.addProperty("objectId", instancesId);
+            length.addProperty("functionDeclaration", "function() { return this.length; }");
+            length.addProperty("returnByValue", true);
+            return session.send("Runtime.callFunctionOn", length)
+                    .getAsJsonObject("result").get("value").getAsInt();
+        } finally {
+            JsonObject group = new JsonObject();
+            group.addProperty("objectGroup", OBJECT_GROUP);
+            session.send("Runtime.releaseObjectGroup", group);
+        }
+    }
+
+    /**
+     * Least-squares slope of {@code values} against {@code iterations}, i.e. growth per iteration.
+     */
+    static double slope(List<Integer> iterations, List<Double> values) {
+        int n = iterations.size();
+        double meanX = iterations.stream().mapToDouble(Integer::doubleValue).average().orElse(0);
+        double meanY = values.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = iterations.get(i) - meanX;
+            covariance += dx * (values.get(i) - meanY);
+            variance += dx * dx;
+        }
+        return variance == 0 ? 0 : covariance / variance;
+    }
+}
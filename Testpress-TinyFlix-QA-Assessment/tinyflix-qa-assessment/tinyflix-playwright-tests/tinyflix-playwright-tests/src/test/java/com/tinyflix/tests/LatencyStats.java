@@ -0,0 +1,64 @@
+package com.tinyflix.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Latency samples for one benchmark metric, summarised as nearest-rank percentiles and appended to
+ * target/perf/benchmarks.csv.
+ */
+public final class LatencyStats {
+
+    private final String benchmark;
+    private final String metric;
+    private final List<Double> samples = new ArrayList<>();
+
+    public LatencyStats(String benchmark, String metric) {
+        this.benchmark = benchmark;
+        this.metric = metric;
+    }
+
+    public synchronized void add(double millis) {
+        samples.add(millis);
+    }
+
+    public synchronized int count() {
+        return samples.size();
+    }
+
+    /**
+     * Nearest-rank percentile, e.g. {@code percentile(95)}. NaN when there are no samples.
+     */
+    public synchronized double percentile(double percent) {
+        if (samples.isEmpty()) {
+            return Double.NaN;
+        }
+        List<Double> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(rank, sorted.size()) - 1));
+    }
+
+    public synchronized double max() {
+        return samples.isEmpty() ? Double.NaN : Collections.max(samples);
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT, "%s %s: n=%d p50=%.1f ms p95=%.1f ms p99=%.1f ms max=%.1f ms",
+                benchmark, metric, count(), percentile(50), percentile(95), percentile(99), max());
+    }
+
+    /**
+     * Prints the summary and appends it to benchmarks.csv. {@code variant} tells runs of the same
+     * metric apart, e.g. the catalog size or network profile; use "" when there is none.
+     */
+    public void report(String variant) {
+        String tags = String.join(",", variant, PerfLog.conditions()).replaceAll("^,|,$", "");
+        System.out.println(tags.isEmpty() ? summary() : summary() + " [" + tags + "]");
+        PerfLog.append("benchmarks.csv", "benchmark,metric,variant,samples,p50_ms,p95_ms,p99_ms,max_ms",
+                Arrays.asList(benchmark, metric, variant, count(), percentile(50), percentile(95), percentile(99), max()));
+    }
+}
@@ -0,0 +1,166 @@
+package com.tinyflix.tests;
+
+import org.testng.annotations.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import static org.testng.Assert.*;
+
+public class LeakTests extends BaseTest {
+
+    private static final int ITERATIONS = Integer.getInteger("tinyflix.leak.iterations", 200);
+    private static final int SAMPLE_EVERY = Integer.getInteger("tinyflix.leak.sampleEvery", 10);
+    // Early iterations fill caches and compile code; growth is only fitted after them
+    private static final int WARMUP = Integer.getInteger("tinyflix.leak.warmup", 20);
+
+    // Every cycle leaves its comment and bookmark in the app, and the ones on the open video stay rendered.
+    // What one of each costs is measured once after warm-up and taken off these metrics, so only growth
+    // beyond what was posted counts.
+    private static final int CALIBRATION_ITEMS = Integer.getInteger("tinyflix.leak.calibrationItems", 20);
+    private static final List<String> NET_OF_POSTED = Arrays.asList(HeapSampler.HEAP_BYTES, HeapSampler.LISTENERS);
+    private static final String POSTED_COMMENT = ".comment:has-text('Leak check comment')";
+
+    // How the flow leaves the player; without a selector it hops straight to another video from the list
+    private static final String BACK_SELECTOR = System.getProperty("tinyflix.leak.back");
+
+    // Allowed growth per iteration, overridable with e.g. -Dtinyflix.leak.max.heap_bytes=20000.
+    // Attached nodes are only recorded: every posted comment legitimately adds to the page.
+    private static final Map<String, Double> MAX_GROWTH = new HashMap<>();
+
+    static {
+        MAX_GROWTH.put(HeapSampler.HEAP_BYTES, 10_000.0);
+        MAX_GROWTH.put(HeapSampler.DETACHED_NODES, 1.0);
+        MAX_GROWTH.put(HeapSampler.LISTENERS, 1.0);
+        MAX_GROWTH.put(HeapSampler.VIDEO_ELEMENTS, 0.01);
+        MAX_GROWTH.replaceAll((metric, max) -> Double.parseDouble(
+                System.getProperty("tinyflix.leak.max." + metric, String.valueOf(max))));
+    }
+
+    @Test(description = "Opening videos, playing, bookmarking and commenting repeatedly should not grow memory")
+    public void testPlayerCyclesDoNotLeak() {
+        navigateToApp();
+        List<String> titles = VideoCard.snapshotAll(page()).stream()
+                .map(VideoCard::title)
+                .limit(2)
+                .collect(Collectors.toList());
+        assertFalse(titles.isEmpty(), "There should be videos to open");
+
+        HeapSampler sampler = new HeapSampler(context(), page());
+        List<Integer> iterations = new ArrayList<>();
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        HeapSampler.METRICS.forEach(metric -> samples.put(metric, new ArrayList<>()));
+        Map<String, Double> perComment = null;
+        Map<String, Double> perBookmark = null;
+        try {
+            for (int i = 1; i <= ITERATIONS; i++) {
+                runCycle(titles.get(i % titles.size()), i);
+                if (i == Math.max(WARMUP, 1)) {
+                    perComment = costPerItem(sampler, this::postCalibrationComments, POSTED_COMMENT);
+                    perBookmark = costPerItem(sampler, this::addCalibrationBookmarks, ".bookmark-item");
+                    System.out.println("leak calibration: per comment " + perComment + ", per bookmark " + perBookmark);
+                }
+                if (i > WARMUP && i % SAMPLE_EVERY == 0) {
+                    Map<String, Double> sample = sampler.sample();
+                    int comments = page().locator(POSTED_COMMENT).count();
+                    int bookmarks = page().locator(".bookmark-item").count();
+                    for (String metric : NET_OF_POSTED) {
+                        sample.put(metric, sample.get(metric)
+                                - comments * perComment.get(metric) - bookmarks * perBookmark.get(metric));
+                    }
+                    iterations.add(i);
+                    sample.forEach((metric, value) -> samples.get(metric).add(value));
+                    List<Object> row = new ArrayList<>(Arrays.asList(testName(), i));
+                    row.addAll(sample.values());
+                    PerfLog.append("leak-samples.csv",
+                            "test,iteration," + String.join(",", HeapSampler.METRICS), row);
+                }
+            }
+        } finally {
+            sampler.detach();
+        }
+        assertTrue(iterations.size() >= 2, "Need at least two samples after warm-up to fit a trend; raise "
+                + "-Dtinyflix.leak.iterations or lower -Dtinyflix.leak.sampleEvery");
+
+        List<String> leaks = new ArrayList<>();
+        for (String metric : HeapSampler.METRICS) {
+            List<Double> values = samples.get(metric);
+            double perIteration = HeapSampler.slope(iterations, values);
+            Double max = MAX_GROWTH.get(metric);
+            System.out.println(String.format(java.util.Locale.ROOT, "leak %s: %.0f -> %.0f over %d iterations, %.3f per iteration%s%s",
+                    metric, values.get(0), values.get(values.size() - 1), ITERATIONS, perIteration,
+                    max == null ? "" : " (max " + max + ")",
+                    NET_OF_POSTED.contains(metric) ? ", net of posted comments and bookmarks" : ""));
+            PerfLog.append("leaks.csv", "test,metric,iterations,first,last,per_iteration,max_per_iteration",
+                    Arrays.asList(testName(), metric, ITERATIONS, values.get(0), values.get(values.size() - 1), perIteration, max));
+            if (max != null && perIteration > max) {
+                leaks.add(String.format(java.util.Locale.ROOT, "%s grows %.3f per iteration (max %s)", metric, perIteration, max));
+            }
+        }
+
+        if (PerfLog.budgetsEnforced()) {
+            assertTrue(leaks.isEmpty(), "Memory grows with every player cycle: " + String.join("; ", leaks));
+        }
+    }
+
+    /**
+     * How much each metric in {@link #NET_OF_POSTED} grows per element matching {@code selector} that
+     * {@code post} adds to the open video.
+     */
+    private Map<String, Double> costPerItem(HeapSampler sampler, Runnable post, String selector) {
+        int countBefore = page().locator(selector).count();
+        Map<String, Double> before = sampler.sample();
+        post.run();
+        Map<String, Double> after = sampler.sample();
+        int added = page().locator(selector).count() - countBefore;
+        Map<String, Double> cost = new LinkedHashMap<>();
+        // Garbage collection noise can make a small cost come out negative
+        NET_OF_POSTED.forEach(metric -> cost.put(metric,
+                added <= 0 ? 0 : Math.max(0, (after.get(metric) - before.get(metric)) / added)));
+        return cost;
+    }
+
+    private void postCalibrationComments() {
+        for (int i = 0; i < CALIBRATION_ITEMS; i++) {
+            postComment("Leak check comment calibration " + i);
+        }
+    }
+
+    private void addCalibrationBookmarks() {
+        for (int i = 0; i < CALIBRATION_ITEMS; i++) {
+            // A bookmark per position, in case the app ignores a second one at the same time
+            page().evaluate("seconds => { const video = document.querySelector('video'); if (video) video.currentTime = seconds; }", i + 1);
+            page().locator("button[aria-label='Add bookmark']").click();
+        }
+    }
+
+    private void postComment(String text) {
+        page().locator("textarea[placeholder='Add a comment...']").fill(text);
+        page().locator("button:has-text('Post Comment')").click();
+        page().waitForSelector(".comment:has-text('" + text + "')");
+    }
+
+    /**
+     * One select, play, bookmark, comment and back cycle, all in the same page.
+     */
+    private void runCycle(String title, int iteration) {
+        page().locator(".video-card:has-text('" + title + "')").first().click();
+        page().waitForSelector(".video-player");
+
+        page().locator("button[aria-label='Play']").click();
+        page().waitForSelector("button[aria-label='Pause']");
+
+        page().locator("button[aria-label='Add bookmark']").click();
+
+        postComment("Leak check comment " + iteration);
+
+        page().locator("button[aria-label='Pause']").click();
+        if (BACK_SELECTOR != null) {
+            page().locator(BACK_SELECTOR).click();
+            page().waitForSelector(".video-card");
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs many virtual users through weighted scenarios at once and measures every action they take.
+ *
+ * A few shared Chromium instances are launched with remote debugging, and every virtual user is a
+ * thread with its own Playwright driver connected to one of them over CDP, with its own context and
+ * page. Playwright is not thread-safe, so a driver per user is what lets them act concurrently; the
+ * browsers are shared so the load is not capped by how many browsers the box can start.
+ *
+ * Users start evenly spread over the ramp-up, then all of them run for the steady phase. Each one
+ * repeatedly picks a scenario by weight, runs its actions in a fresh page load and pauses for a think
+ * time. Every action's latency, successes and errors are kept per phase.
+ */
+final class LoadDriver {
+
+    private final int users;
+    private final long rampUpMs;
+    private final long steadyMs;
+    private final int browsers;
+    private final long thinkMs;
+    private final long seed;
+    private final List<Scenario> scenarios = new ArrayList<>();
+
+    private final Map<String, ActionStats> stats = new ConcurrentHashMap<>();
+    private volatile long steadyStartNanos;
+    // Users whose connection, context or page setup failed, so they ran no scenario at all
+    private final LongAdder failedUsers = new LongAdder();
+
+    LoadDriver(int users, long rampUpMs, long steadyMs, int browsers, long thinkMs, long seed) {
+        this.users = users;
+        this.rampUpMs = rampUpMs;
+        this.steadyMs = steadyMs;
+        this.browsers = Math.max(1, Math.min(browsers, users));
+        this.thinkMs = thinkMs;
+        this.seed = seed;
+    }
+
+    /**
+     * Adds a scenario picked with probability proportional to {@code weight}; give it actions with
+     * {@link Scenario#action}.
+     */
+    Scenario scenario(String name, int weight) {
+        Scenario scenario = new Scenario(name, weight);
+        if (weight > 0) {
+            scenarios.add(scenario);
+        }
+        return scenario;
+    }
+
+    /**
+     * Runs the load to the end of the steady phase. {@code contextOptions} configures every user's
+     * context and {@code preparePage} runs on every user's page before its first scenario.
+     */
+    Report run(Supplier<Browser.NewContextOptions> contextOptions, Consumer<Page> preparePage) {
+        if (scenarios.isEmpty()) {
+            throw new IllegalStateException("No scenario has a weight above 0");
+        }
+        List<String> endpoints = new ArrayList<>();
+        Playwright host = Playwright.create();
+        ExecutorService threads = Executors.newFixedThreadPool(users, runnable -> {
+            Thread thread = new Thread(runnable, "tinyflix-virtual-user");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < browsers; i++) {
+                int port = freePort();
+                host.chromium().launch(new BrowserType.LaunchOptions()
+                        .setHeadless(true)
+                        .setArgs(Arrays.asList("--remote-debugging-port=" + port)));
+                endpoints.add("http://127.0.0.1:" + port);
+            }
+
+            long start = System.nanoTime();
+            steadyStartNanos = start + rampUpMs * 1_000_000;
+            long endNanos = steadyStartNanos + steadyMs * 1_000_000;
+            for (int user = 0; user < users; user++) {
+                long startDelayMs = users == 1 ? 0 : rampUpMs * user / (users - 1);
+                String endpoint = endpoints.get(user % endpoints.size());
+                Random random = new Random(seed + user);
+                threads.submit(() -> runUser(endpoint, start + startDelayMs * 1_000_000, endNanos, random,
+                        contextOptions, preparePage));
+            }
+            threads.shutdown();
+            // Users finish the action they are in after the steady phase ends
+            if (!threads.awaitTermination(rampUpMs + steadyMs + 300_000, TimeUnit.MILLISECONDS)) {
+                threads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            threads.shutdownNow();
+        } finally {
+            host.close();
+        }
+        return new Report();
+    }
+
+    private void runUser(String endpoint, long startNanos, long endNanos, Random random,
+                         Supplier<Browser.NewContextOptions> contextOptions, Consumer<Page> preparePage) {
+        sleepUntil(startNanos);
+        boolean connected = false;
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().connectOverCDP(endpoint);
+            BrowserContext context = browser.newContext(contextOptions.get());
+            Page page = context.newPage();
+            preparePage.accept(page);
+            connected = true;
+            int iteration = 0;
+            while (System.nanoTime() < endNanos) {
+                runScenario(pick(random), page, iteration++);
+                sleepUntil(System.nanoTime() + (long) (thinkMs * (0.5 + random.nextDouble())) * 1_000_000);
+            }
+            context.close();
+        } catch (PlaywrightException e) {
+            stats("connect").error(System.nanoTime() >= steadyStartNanos, e);
+            if (!connected) {
+                failedUsers.increment();
+            }
+        }
+    }
+
+    private void runScenario(Scenario scenario, Page page, int iteration) {
+        for (Action action : scenario.actions) {
+            long start = System.nanoTime();
+            boolean steady = start >= steadyStartNanos;
+            try {
+                action.step.run(page, iteration);
+                stats(action.name).add(steady, (System.nanoTime() - start) / 1e6);
+            } catch (PlaywrightException | AssertionError e) {
+                // The next iteration reloads the app, so one failed action does not take the user down
+                stats(action.name).error(steady, e);
+                return;
+            }
+        }
+    }
+
+    private Scenario pick(Random random) {
+        int total = scenarios.stream().mapToInt(scenario -> scenario.weight).sum();
+        int ticket = random.nextInt(total);
+        for (Scenario scenario : scenarios) {
+            ticket -= scenario.weight;
+            if (ticket < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    private ActionStats stats(String action) {
+        return stats.computeIfAbsent(action, ActionStats::new);
+    }
+
+    private static void sleepUntil(long nanos) {
+        long remainingMs = (nanos - System.nanoTime()) / 1_000_000;
+        if (remainingMs > 0) {
+            try {
+                Thread.sleep(remainingMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No free port for a shared browser", e);
+        }
+    }
+
+    /**
+     * One step of a scenario, run against the user's page; {@code iteration} counts the user's scenarios.
+     */
+    interface Step {
+        void run(Page page, int iteration);
+    }
+
+    /**
+     * A named sequence of timed actions.
+     */
+    static final class Scenario {
+
+        private final String name;
+        private final int weight;
+        private final List<Action> actions = new ArrayList<>();
+
+        private Scenario(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        Scenario action(String name, Step step) {
+            actions.add(new Action(name, step));
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return name + ":" + weight;
+        }
+    }
+
+    private static final class Action {
+
+        private final String name;
+        private final Step step;
+
+        private Action(String name, Step step) {
+            this.name = name;
+            this.step = step;
+        }
+    }
+
+    private static final class ActionStats {
+
+        private final String action;
+        private final LatencyStats rampUp;
+        private final LatencyStats steady;
+        private final LongAdder rampUpErrors = new LongAdder();
+        private final LongAdder steadyErrors = new LongAdder();
+        private volatile String firstError;
+
+        private ActionStats(String action) {
+            this.action = action;
+            this.rampUp = new LatencyStats("load", action);
+            this.steady = new LatencyStats("load", action);
+        }
+
+        private void add(boolean inSteadyPhase, double ms) {
+            (inSteadyPhase ? steady : rampUp).add(ms);
+        }
+
+        private void error(boolean inSteadyPhase, Throwable error) {
+            (inSteadyPhase ? steadyErrors : rampUpErrors).increment();
+            if (firstError == null) {
+                firstError = String.valueOf(error.getMessage()).split("\n", 2)[0];
+            }
+        }
+    }
+
+    /**
+     * What the run measured, per action and phase.
+     */
+    final class Report {
+
+        private Report() {
+        }
+
+        /**
+         * Prints every action's throughput, errors and latency percentiles per phase, appends the
+         * percentiles to benchmarks.csv and the throughput to load.csv.
+         */
+        void print() {
+            System.out.println(String.format(Locale.ROOT, "[load] %d users on %d browsers, %d s ramp-up, %d s steady, scenarios %s",
+                    users, browsers, rampUpMs / 1000, steadyMs / 1000, scenarios));
+            if (failedUsers() > 0) {
+                System.out.println("[load] " + failedUsers() + " of " + users + " users could not connect and ran nothing");
+            }
+            stats.values().stream()
+                    .sorted((a, b) -> a.action.compareTo(b.action))
+                    .forEach(action -> {
+                        report(action, "ramp-up", action.rampUp, action.rampUpErrors.intValue(), rampUpMs);
+                        report(action, "steady", action.steady, action.steadyErrors.intValue(), steadyMs);
+                        if (action.firstError != null) {
+                            System.out.println("  " + action.action + " first error: " + action.firstError);
+                        }
+                    });
+        }
+
+        private void report(ActionStats action, String phase, LatencyStats latencies, int errors, long phaseMs) {
+            if (latencies.count() == 0 && errors == 0) {
+                return;
+            }
+            double perSecond = phaseMs == 0 ? Double.NaN : latencies.count() * 1000.0 / phaseMs;
+            System.out.println(String.format(Locale.ROOT, "[load] %s %s: %d ok, %d errors, %.2f/s",
+                    phase, action.action, latencies.count(), errors, perSecond));
+            if (latencies.count() > 0) {
+                latencies.report("phase=" + phase + ",users=" + users);
+            }
+            PerfLog.append("load.csv", "phase,action,users,ok,errors,per_second,p50_ms,p95_ms,p99_ms",
+                    Arrays.asList(phase, action.action, users, latencies.count(), errors, perSecond,
+                            latencies.percentile(50), latencies.percentile(95), latencies.percentile(99)));
+        }
+
+        /**
+         * Failed actions as a share of all actions in the steady phase.
+         */
+        double steadyErrorRate() {
+            long ok = stats.values().stream().mapToLong(action -> action.steady.count()).sum();
+            long errors = stats.values().stream().mapToLong(action -> action.steadyErrors.sum()).sum();
+            return ok + errors == 0 ? 0 : (double) errors / (ok + errors);
+        }
+
+        /**
+         * Users that never got as far as their first scenario, because connecting to the browser or
+         * opening their context or page failed.
+         */
+        long failedUsers() {
+            return failedUsers.sum();
+        }
+
+        /**
+         * Successful actions in the steady phase.
+         */
+        long steadyActions() {
+            return stats.values().stream().mapToLong(action -> action.steady.count()).sum();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.*;
+import com.microsoft.playwright.options.WaitUntilState;
+import org.testng.annotations.*;
+import java.util.HashMap;
+import java.util.Map;
+import static com.microsoft.playwright.assertions.PlaywrightAssertions.assertThat;
+import static org.testng.Assert.*;
+
+public class LoadTests extends BaseTest {
+
+    private static final int USERS = Integer.getInteger("tinyflix.load.users", 20);
+    private static final int RAMP_UP_SECONDS = Integer.getInteger("tinyflix.load.rampUpSeconds", 30);
+    private static final int STEADY_SECONDS = Integer.getInteger("tinyflix.load.steadySeconds", 60);
+    private static final int BROWSERS = Integer.getInteger("tinyflix.load.browsers", 4);
+    private static final int THINK_MS = Integer.getInteger("tinyflix.load.thinkMs", 1000);
+    private static final String MIX = System.getProperty("tinyflix.load.mix", "browse:2,search:2,watch:3,comment:2,bookmark:1");
+    // Serve the API from the in-JVM stand-in, so its queueing under load is measured too
+    private static final boolean STAND_IN_API = Boolean.getBoolean("tinyflix.load.api");
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("tinyflix.load.maxErrorRate", "0.01"));
+
+    private static final String VIDEO = "React Basics";
+    private static final String[] SEARCH_TERMS = {"react", "css", "javascript", "basics"};
+    // The cards are on the page before the search, so wait until the list has actually been filtered
+    private static final String SEARCH_APPLIED = "term => {\n" +
+            "  const cards = Array.from(document.querySelectorAll('.video-card'));\n" +
+            "  return cards.length > 0 && cards.every(card => card.textContent.toLowerCase().includes(term));\n" +
+            "}";
+
+    @Test(description = "Concurrent users searching, watching and commenting should not see errors")
+    public void testConcurrentUsers() {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String entry : MIX.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0], Integer.parseInt(parts[1]));
+        }
+
+        LoadDriver driver = new LoadDriver(USERS, RAMP_UP_SECONDS * 1000L, STEADY_SECONDS * 1000L, BROWSERS, THINK_MS,
+                Long.getLong("tinyflix.load.seed", 42));
+        driver.scenario("browse", weights.getOrDefault("browse", 0))
+                .action("navigate", this::navigate);
+        driver.scenario("search", weights.getOrDefault("search", 0))
+                .action("navigate", this::navigate)
+                .action("search", (page, iteration) -> {
+                    String term = SEARCH_TERMS[iteration % SEARCH_TERMS.length];
+                    page.locator("input[placeholder*='Search videos']").fill(term);
+                    page.waitForFunction(SEARCH_APPLIED, term);
+                });
+        driver.scenario("watch", weights.getOrDefault("watch", 0))
+                .action("navigate", this::navigate)
+                .action("select video", (page, iteration) -> selectVideo(page, VIDEO))
+                .action("play", (page, iteration) -> {
+                    page.locator("button[aria-label='Play']").click();
+                    page.waitForSelector("button[aria-label='Pause']");
+                });
+        driver.scenario("comment", weights.getOrDefault("comment", 0))
+                .action("navigate", this::navigate)
+                .action("select video", (page, iteration) -> selectVideo(page, VIDEO))
+                .action("post comment", (page, iteration) -> {
+                    String text = "Load test comment " + iteration;
+                    page.locator("textarea[placeholder='Add a comment...']").fill(text);
+                    page.locator("button:has-text('Post Comment')").click();
+                    page.waitForSelector(".comment:has-text('" + text + "')");
+                });
+        driver.scenario("bookmark", weights.getOrDefault("bookmark", 0))
+                .action("navigate", this::navigate)
+                .action("select video", (page, iteration) -> selectVideo(page, VIDEO))
+                .action("add bookmark", (page, iteration) -> {
+                    int before = page.locator(".bookmark-item").count();
+                    page.locator("button[aria-label='Add bookmark']").click();
+                    assertThat(page.locator(".bookmark-item")).hasCount(before + 1);
+                });
+
+        // Users run on their own threads, so take this thread's device now
+        DeviceProfile device = deviceProfile();
+        ApiServer api = STAND_IN_API ? ApiServer.fromSystemProperties() : null;
+        LoadDriver.Report report;
+        try {
+            report = driver.run(() -> device.configure(new Browser.NewContextOptions()).setIgnoreHTTPSErrors(true),
+                    page -> {
+                        if (api != null) {
+                            api.route(page);
+                        }
+                    });
+        } finally {
+            if (api != null) {
+                System.out.println(api + " (" + api.conditions() + ")");
+                api.close();
+            }
+        }
+        report.print();
+
+        assertTrue(report.steadyActions() > 0, "No action completed in the steady phase");
+        // The error rate only covers users that ran, so a user that never connected fails the run outright
+        assertEquals(report.failedUsers(), 0L, "Virtual users that could not connect");
+        if (PerfLog.budgetsEnforced()) {
+            assertTrue(report.steadyErrorRate() <= MAX_ERROR_RATE, String.format(java.util.Locale.ROOT,
+                    "%.1f%% of actions failed under load (max %.1f%%)", report.steadyErrorRate() * 100, MAX_ERROR_RATE * 100));
+        }
+    }
+
+    private void navigate(Page page, int iteration) {
+        page.navigate(baseUrl, new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT));
+        readiness().awaitReady(page, 30_000);
+    }
+}
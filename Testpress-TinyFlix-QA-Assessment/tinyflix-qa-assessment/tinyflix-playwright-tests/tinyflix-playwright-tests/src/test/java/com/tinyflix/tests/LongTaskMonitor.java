@@ -0,0 +1,46 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects main-thread long tasks (over 50 ms) with a PerformanceObserver installed before the app loads.
+ */
+final class LongTaskMonitor {
+
+    private static final String OBSERVER_SCRIPT = "(() => {\n" +
+            "  if (window.__tinyflixLongTasks) return;\n" +
+            "  window.__tinyflixLongTasks = [];\n" +
+            "  try {\n" +
+            "    new PerformanceObserver(list => {\n" +
+            "      list.getEntries().forEach(entry => window.__tinyflixLongTasks.push(entry.duration));\n" +
+            "    }).observe({ type: 'longtask', buffered: true });\n" +
+            "  } catch (e) {\n" +
+            "    // Long task timing not supported by this browser\n" +
+            "  }\n" +
+            "})();";
+
+    private LongTaskMonitor() {
+    }
+
+    /**
+     * Observes long tasks in every page the context loads from now on.
+     */
+    static void install(BrowserContext context) {
+        context.addInitScript(OBSERVER_SCRIPT);
+    }
+
+    /**
+     * Returns the durations of the long tasks seen since the last drain, in milliseconds, and forgets them.
+     */
+    static List<Double> drain(Page page) {
+        List<Double> durations = new ArrayList<>();
+        Object observed = page.evaluate("() => (window.__tinyflixLongTasks || []).splice(0)");
+        for (Object duration : (List<?>) observed) {
+            durations.add(((Number) duration).doubleValue());
+        }
+        return durations;
+    }
+}
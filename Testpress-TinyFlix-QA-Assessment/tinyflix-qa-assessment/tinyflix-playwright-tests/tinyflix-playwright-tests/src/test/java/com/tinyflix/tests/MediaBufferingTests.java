@@ -0,0 +1,77 @@
+package com.tinyflix.tests;
+
+import org.testng.SkipException;
+import org.testng.annotations.*;
+import java.util.List;
+import java.util.Map;
+import static org.testng.Assert.*;
+
+public class MediaBufferingTests extends BaseTest {
+
+    // How much media time to play through; long enough to run into the stall
+    private static final int PLAY_SECONDS = Integer.getInteger("tinyflix.media.playSeconds", 8);
+    private static final int STALL_AFTER_KB = Integer.getInteger("tinyflix.media.stallAfterKb", 512);
+    private static final int STALL_MS = Integer.getInteger("tinyflix.media.stallMs", 2000);
+
+    // Records when the player starts, waits for data and resumes, in page time
+    private static final String RECORDER_SCRIPT = "() => {\n" +
+            "  const video = document.querySelector('video');\n" +
+            "  const events = window.__tinyflixMediaEvents = [];\n" +
+            "  ['play', 'playing', 'waiting', 'stalled'].forEach(type =>\n" +
+            "      video.addEventListener(type, () => events.push({ type: type, at: performance.now() })));\n" +
+            "}";
+
+    @Test(description = "Playback should start, ride out a mid-stream stall and resume")
+    public void testPlaybackRecoversFromStall() {
+        MediaServer server = MediaServer.fromSystemProperties();
+        if (server == null) {
+            throw new SkipException("No videos to serve; put test MP4s in src/test/resources/media or set -Dtinyflix.media.dir");
+        }
+        try {
+            server.stall(STALL_AFTER_KB * 1024L, STALL_MS);
+            String variant = server.conditions();
+            server.route(page());
+
+            navigateToApp();
+            selectVideo("React Basics");
+            page().evaluate(RECORDER_SCRIPT);
+
+            page().locator("button[aria-label='Play']").click();
+            boolean reached = waitForVideoTime(PLAY_SECONDS, 60_000);
+            if (server.requests() == 0) {
+                throw new SkipException("The player did not request an .mp4 or .webm file, so nothing went through the media server");
+            }
+
+            LatencyStats startup = new LatencyStats("media", "play-to-playing");
+            LatencyStats rebuffer = new LatencyStats("media", "rebuffer");
+            Double play = null;
+            Double waiting = null;
+            for (Object entry : (List<?>) page().evaluate("() => window.__tinyflixMediaEvents")) {
+                Map<?, ?> event = (Map<?, ?>) entry;
+                double at = ((Number) event.get("at")).doubleValue();
+                String type = (String) event.get("type");
+                if ("play".equals(type) && play == null) {
+                    play = at;
+                } else if ("waiting".equals(type) && startup.count() > 0 && waiting == null) {
+                    waiting = at;
+                } else if ("playing".equals(type)) {
+                    if (startup.count() == 0 && play != null) {
+                        startup.add(at - play);
+                    } else if (waiting != null) {
+                        rebuffer.add(at - waiting);
+                        waiting = null;
+                    }
+                }
+            }
+            startup.report(variant);
+            rebuffer.report(variant);
+            System.out.println(server);
+
+            assertTrue(server.rangeRequests() > 0, "The player should fetch the video with byte ranges: " + server);
+            assertTrue(reached, "Playback should reach " + PLAY_SECONDS + " s despite the stall; rebuffered "
+                    + rebuffer.count() + " times, " + server);
+        } finally {
+            server.close();
+        }
+    }
+}
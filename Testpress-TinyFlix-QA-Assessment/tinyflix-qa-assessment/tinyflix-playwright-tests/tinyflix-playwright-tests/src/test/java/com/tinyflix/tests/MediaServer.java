@@ -0,0 +1,387 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Route;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local stand-in for the media host, so playback, seeking and stalls can be measured the same way on
+ * any box, offline included.
+ *
+ * Serves the video files in one directory over HTTP with byte ranges (206 Partial Content), sending
+ * file bytes with FileChannel.transferTo so they go from the page cache to the socket without being
+ * copied through the JVM. Every response can be delayed, capped to a bandwidth, and the stream can
+ * stall once when playback reaches a given byte; all three can be changed while a test runs.
+ *
+ * {@link #route(Page)} sends the page's video requests here; a request for a file the directory does
+ * not have gets the first video in it instead.
+ *
+ * Configure the defaults with -Dtinyflix.media.dir (default src/test/resources/media),
+ * -Dtinyflix.media.latencyMs, -Dtinyflix.media.kbps (0 for unlimited), -Dtinyflix.media.stallAfterKb
+ * and -Dtinyflix.media.stallMs.
+ */
+public final class MediaServer implements AutoCloseable {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    // Smallest write when pacing to a bandwidth cap, so slow caps do not turn into tiny packets
+    private static final long MIN_CHUNK_BYTES = 16 * 1024;
+    private static final int MAX_HEAD_LINES = 100;
+
+    private final Path dir;
+    private final Path fallback;
+    private final ServerSocketChannel server;
+    private final ExecutorService connections;
+
+    private volatile int latencyMs;
+    private volatile long bytesPerSecond;
+    private volatile long stallAtByte = -1;
+    private volatile int stallMs;
+    private final Object stallLock = new Object();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicInteger stalls = new AtomicInteger();
+
+    private MediaServer(Path dir, Path fallback) throws IOException {
+        this.dir = dir;
+        this.fallback = fallback;
+        this.server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "tinyflix-media-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connections.submit(this::acceptLoop);
+    }
+
+    /**
+     * Starts a server for the configured media directory with the configured conditions, or returns
+     * null if the directory has no videos.
+     */
+    public static MediaServer fromSystemProperties() {
+        MediaServer server = start(Paths.get(System.getProperty("tinyflix.media.dir", "src/test/resources/media")));
+        if (server != null) {
+            server.latency(Integer.getInteger("tinyflix.media.latencyMs", 0));
+            server.bandwidth(Integer.getInteger("tinyflix.media.kbps", 0));
+            int stallAfterKb = Integer.getInteger("tinyflix.media.stallAfterKb", -1);
+            if (stallAfterKb >= 0) {
+                server.stall(stallAfterKb * 1024L, Integer.getInteger("tinyflix.media.stallMs", 2000));
+            }
+        }
+        return server;
+    }
+
+    /**
+     * Starts an unthrottled server for the videos in {@code dir}, or returns null if it has none.
+     */
+    public static MediaServer start(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Path fallback = files.filter(MediaServer::isVideo).sorted().findFirst().orElse(null);
+            return fallback == null ? null : new MediaServer(dir, fallback);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start the media server for " + dir, e);
+        }
+    }
+
+    /**
+     * Sends every video request the page makes from now on to this server.
+     */
+    public void route(Page page) {
+        page.route(url -> isVideo(fileName(url)),
+                route -> route.resume(new Route.ResumeOptions().setUrl(url(route.request().url()))));
+    }
+
+    /**
+     * This server's URL for the file named at the end of {@code originalUrl}.
+     */
+    public String url(String originalUrl) {
+        Path name = fileName(originalUrl);
+        return "http://127.0.0.1:" + server.socket().getLocalPort() + "/" + (name == null ? "" : name);
+    }
+
+    /**
+     * Delays every response by {@code ms} before its first byte.
+     */
+    public MediaServer latency(int ms) {
+        this.latencyMs = Math.max(0, ms);
+        return this;
+    }
+
+    /**
+     * Caps every response to {@code kbps} kilobits per second; 0 removes the cap.
+     */
+    public MediaServer bandwidth(int kbps) {
+        this.bytesPerSecond = Math.max(0, kbps) * 1000L / 8;
+        return this;
+    }
+
+    /**
+     * Stalls the stream for {@code ms} the first time a response reaches {@code byteOffset} of its file.
+     */
+    public MediaServer stall(long byteOffset, int ms) {
+        synchronized (stallLock) {
+            this.stallAtByte = byteOffset;
+            this.stallMs = ms;
+        }
+        return this;
+    }
+
+    /**
+     * The conditions currently applied, e.g. "latency=50ms;kbps=4000;stall=512KB/2000ms".
+     */
+    public String conditions() {
+        long stallAt = stallAtByte;
+        return "latency=" + latencyMs + "ms;kbps=" + (bytesPerSecond == 0 ? "unlimited" : String.valueOf(bytesPerSecond * 8 / 1000))
+                + ";stall=" + (stallAt < 0 ? "none" : stallAt / 1024 + "KB/" + stallMs + "ms");
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    /**
+     * How many requests asked for a byte range rather than the whole file.
+     */
+    public int rangeRequests() {
+        return rangeRequests.get();
+    }
+
+    public long bytesServed() {
+        return bytesServed.get();
+    }
+
+    /**
+     * How many times the stream actually stalled.
+     */
+    public int stalls() {
+        return stalls.get();
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        connections.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "media server: " + requests() + " requests (" + rangeRequests() + " ranges), "
+                + bytesServed() / 1024 + " KB served, " + stalls() + " stalls";
+    }
+
+    /**
+     * The last path segment of {@code url}, or null if it has none.
+     */
+    private static Path fileName(String url) {
+        try {
+            String path = URI.create(url).getPath();
+            return path == null || path.isEmpty() ? null : Paths.get(path).getFileName();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isVideo(Path file) {
+        String name = file == null ? "" : file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".mp4") || name.endsWith(".webm");
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel client = server.accept();
+                connections.submit(() -> serve(client));
+            } catch (IOException e) {
+                // Closed by close()
+                return;
+            }
+        }
+    }
+
+    /**
+     * Answers one request, then closes the connection; the player opens a new one per range anyway.
+     */
+    private void serve(SocketChannel client) {
+        try (SocketChannel channel = client) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.ISO_8859_1));
+            String requestLine = reader.readLine();
+            if (requestLine == null) {
+                return;
+            }
+            String range = null;
+            String line;
+            for (int i = 0; i < MAX_HEAD_LINES && (line = reader.readLine()) != null && !line.isEmpty(); i++) {
+                if (line.regionMatches(true, 0, "Range:", 0, 6)) {
+                    range = line.substring(6).trim();
+                }
+            }
+            requests.incrementAndGet();
+
+            String[] parts = requestLine.split(" ");
+            if (parts.length < 2 || !("GET".equals(parts[0]) || "HEAD".equals(parts[0]))) {
+                writeHead(channel, "405 Method Not Allowed", 0, null, null);
+                return;
+            }
+            Path name = fileName(parts[1]);
+            Path file = name != null && Files.isRegularFile(dir.resolve(name)) ? dir.resolve(name) : fallback;
+            serveFile(channel, file, range, "HEAD".equals(parts[0]));
+        } catch (IOException | IllegalArgumentException e) {
+            // The player cancels requests it no longer needs, e.g. on a seek
+        }
+    }
+
+    private void serveFile(SocketChannel channel, Path file, String rangeHeader, boolean headOnly) throws IOException {
+        try (FileChannel content = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = content.size();
+            long start = 0;
+            long end = size - 1;
+            String status = "200 OK";
+            if (rangeHeader != null) {
+                Matcher range = RANGE.matcher(rangeHeader);
+                if (!range.matches() || (range.group(1).isEmpty() && range.group(2).isEmpty())) {
+                    writeHead(channel, "416 Range Not Satisfiable", 0, "bytes */" + size, null);
+                    return;
+                }
+                if (range.group(1).isEmpty()) {
+                    // Suffix range: the last N bytes
+                    start = Math.max(0, size - Long.parseLong(range.group(2)));
+                } else {
+                    start = Long.parseLong(range.group(1));
+                    end = range.group(2).isEmpty() ? size - 1 : Math.min(size - 1, Long.parseLong(range.group(2)));
+                }
+                if (start >= size || start > end) {
+                    writeHead(channel, "416 Range Not Satisfiable", 0, "bytes */" + size, null);
+                    return;
+                }
+                status = "206 Partial Content";
+                rangeRequests.incrementAndGet();
+            }
+
+            sleep(latencyMs);
+            long length = end - start + 1;
+            writeHead(channel, status, length, rangeHeader == null ? null : "bytes " + start + "-" + end + "/" + size,
+                    file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".webm") ? "video/webm" : "video/mp4");
+            if (!headOnly) {
+                transfer(content, start, length, channel);
+            }
+        }
+    }
+
+    private void writeHead(SocketChannel channel, String status, long length, String contentRange, String contentType)
+            throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append("\r\n")
+                .append("Accept-Ranges: bytes\r\n")
+                .append("Content-Length: ").append(length).append("\r\n")
+                // The page is served from another origin, and results must not depend on the HTTP cache
+                .append("Access-Control-Allow-Origin: *\r\n")
+                .append("Cache-Control: no-store\r\n")
+                .append("Connection: close\r\n");
+        if (contentRange != null) {
+            head.append("Content-Range: ").append(contentRange).append("\r\n");
+        }
+        if (contentType != null) {
+            head.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Sends {@code length} bytes from {@code position}, paced to the bandwidth cap and pausing at the
+     * stall point if this response crosses it.
+     */
+    private void transfer(FileChannel content, long position, long length, SocketChannel channel) throws IOException {
+        long started = System.nanoTime();
+        long sent = 0;
+        while (sent < length) {
+            long chunk = length - sent;
+            long cap = bytesPerSecond;
+            if (cap > 0) {
+                chunk = Math.min(chunk, Math.max(MIN_CHUNK_BYTES, cap / 20));
+            }
+            long stallAt = stallAtByte;
+            if (stallAt > position + sent) {
+                chunk = Math.min(chunk, stallAt - position - sent);
+            }
+
+            long written = content.transferTo(position + sent, chunk, channel);
+            if (written <= 0) {
+                return;
+            }
+            sent += written;
+            bytesServed.addAndGet(written);
+
+            if (stallAt >= 0 && position <= stallAt && position + sent >= stallAt) {
+                // Pace from after the stall, so the cap does not let the stream burst to catch up
+                started += stallOnce(stallAt) * 1_000_000L;
+            }
+            if (cap > 0) {
+                long dueNanos = sent * 1_000_000_000L / cap;
+                sleep((int) ((dueNanos - (System.nanoTime() - started)) / 1_000_000));
+            }
+        }
+    }
+
+    /**
+     * Stalls unless another response already did, and returns how long it stalled for.
+     */
+    private int stallOnce(long stallAt) {
+        int ms;
+        synchronized (stallLock) {
+            if (stallAtByte != stallAt) {
+                return 0;
+            }
+            // Later responses stream straight through, so the stall happens exactly once
+            stallAtByte = -1;
+            ms = stallMs;
+        }
+        stalls.incrementAndGet();
+        sleep(ms);
+        return ms;
+    }
+
+    private static void sleep(int ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
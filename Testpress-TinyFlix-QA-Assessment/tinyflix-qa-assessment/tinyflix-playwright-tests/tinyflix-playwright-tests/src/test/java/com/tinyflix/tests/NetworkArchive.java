@@ -0,0 +1,502 @@
+package com.tinyflix.tests;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.APIResponse;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Route;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Records every request the app makes to its own origin once, and serves them back without the dev
+ * server, so the functional suite can run hermetically.
+ *
+ * Run once with -Dtinyflix.replay=record against a running app to write the archive, then with
+ * -Dtinyflix.replay=replay to serve from it. The archive in .tinyflix/replay (override with
+ * -Dtinyflix.replay.dir) is a HAR file whose entries point into bodies.bin, which replay maps into
+ * memory instead of reading it in. Videos are recorded whole and served with byte ranges.
+ *
+ * A request is matched on method, URL and body first. Failing that it falls back to the entry for the
+ * same method and path whose query string is closest, ignoring volatile parameters such as Vite's
+ * cache busters (-Dtinyflix.replay.ignoreParams, default t,v,_). A request with no match is aborted, or
+ * sent to the network with -Dtinyflix.replay.fallback=network. At the end of the suite the fuzzy
+ * matches, misses and entries nothing asked for are reported, so a stale archive shows up before it
+ * hides a regression; they are also written to target/perf/replay.csv.
+ */
+final class NetworkArchive {
+
+    enum Mode { OFF, RECORD, REPLAY }
+
+    static final Mode MODE = Mode.valueOf(System.getProperty("tinyflix.replay", "off").trim().toUpperCase(Locale.ROOT));
+
+    private static final Path DIR = Paths.get(System.getProperty("tinyflix.replay.dir", ".tinyflix/replay"));
+    private static final boolean FALL_BACK_TO_NETWORK = "network".equalsIgnoreCase(System.getProperty("tinyflix.replay.fallback"));
+    private static final List<String> VOLATILE_PARAMS =
+            Arrays.asList(System.getProperty("tinyflix.replay.ignoreParams", "t,v,_").split("\\s*,\\s*"));
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final String HAR_FILE = "archive.har";
+    private static final String BODIES_FILE = "bodies.bin";
+
+    private static NetworkArchive instance;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entries by method and path without the query, for fuzzy matching
+    private final Map<String, List<Entry>> entriesByPath = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> misses = new ConcurrentHashMap<>();
+    private final Map<String, Entry> fuzzyMatches = new ConcurrentHashMap<>();
+    private final AtomicInteger exactHits = new AtomicInteger();
+    private final AtomicInteger fuzzyHits = new AtomicInteger();
+    private final String recordedAt;
+
+    // Recording appends bodies to a temp file; replay maps the finished one
+    private FileChannel recording;
+    private MappedByteBuffer bodies;
+
+    private NetworkArchive(String recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    /**
+     * The archive for this run, opened on first use; only call when {@link #MODE} is not OFF.
+     */
+    static synchronized NetworkArchive get() {
+        if (instance == null) {
+            instance = MODE == Mode.RECORD ? startRecording() : load();
+        }
+        return instance;
+    }
+
+    /**
+     * Records or serves every request {@code context} makes to the origin of {@code appUrl}. Routes
+     * that tests add to their page take precedence.
+     */
+    void install(BrowserContext context, String appUrl) {
+        String origin = origin(appUrl);
+        context.route(url -> url.startsWith(origin), MODE == Mode.RECORD ? this::record : this::replay);
+    }
+
+    private static NetworkArchive startRecording() {
+        try {
+            Files.createDirectories(DIR);
+            NetworkArchive archive = new NetworkArchive(Instant.now().toString());
+            archive.recording = FileChannel.open(DIR.resolve(BODIES_FILE + ".tmp"), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            System.out.println("[replay] recording to " + DIR);
+            return archive;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start recording to " + DIR, e);
+        }
+    }
+
+    private static NetworkArchive load() {
+        Path har = DIR.resolve(HAR_FILE);
+        if (!Files.exists(har)) {
+            throw new IllegalStateException("No archive in " + DIR + "; record one with -Dtinyflix.replay=record");
+        }
+        try (FileChannel channel = FileChannel.open(DIR.resolve(BODIES_FILE), StandardOpenOption.READ)) {
+            JsonObject log = JsonParser.parseString(new String(Files.readAllBytes(har), StandardCharsets.UTF_8))
+                    .getAsJsonObject().getAsJsonObject("log");
+            NetworkArchive archive = new NetworkArchive(log.get("comment").getAsString());
+            archive.bodies = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (JsonElement element : log.getAsJsonArray("entries")) {
+                archive.add(Entry.fromHar(element.getAsJsonObject()));
+            }
+            System.out.println("[replay] serving " + archive.entries.size() + " responses from " + DIR
+                    + " (" + archive.recordedAt + ")");
+            return archive;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the archive in " + DIR, e);
+        }
+    }
+
+    private void record(Route route) {
+        Request request = route.request();
+        String key = key(request);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            // Videos are fetched whole, so any range the player asks for later can be served from the archive
+            Map<String, String> headers = new HashMap<>(request.headers());
+            headers.remove("range");
+            long start = System.nanoTime();
+            APIResponse response = route.fetch(new Route.FetchOptions().setHeaders(headers));
+            entry = store(key, request, response, (System.nanoTime() - start) / 1_000_000);
+        }
+        serve(route, entry);
+    }
+
+    private void replay(Route route) {
+        Request request = route.request();
+        Entry entry = entries.get(key(request));
+        if (entry != null) {
+            exactHits.incrementAndGet();
+        } else {
+            entry = closest(request);
+            if (entry != null) {
+                fuzzyHits.incrementAndGet();
+                fuzzyMatches.putIfAbsent(request.method() + " " + request.url(), entry);
+            }
+        }
+        if (entry == null) {
+            misses.computeIfAbsent(request.method() + " " + request.url(), key -> new AtomicInteger()).incrementAndGet();
+            if (FALL_BACK_TO_NETWORK) {
+                route.fallback();
+            } else {
+                route.abort("connectionrefused");
+            }
+            return;
+        }
+        entry.hits.incrementAndGet();
+        serve(route, entry);
+    }
+
+    private synchronized Entry store(String key, Request request, APIResponse response, long timeMs) {
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        byte[] body = response.body();
+        try {
+            long offset = recording.size();
+            recording.write(ByteBuffer.wrap(body), offset);
+            Entry entry = new Entry(request.method(), request.url(), bodyHash(request), response.status(),
+                    response.statusText(), response.headers(), offset, body.length, timeMs);
+            add(entry);
+            return entry;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record " + request.url(), e);
+        }
+    }
+
+    private void add(Entry entry) {
+        entries.putIfAbsent(entry.key(), entry);
+        entriesByPath.computeIfAbsent(entry.method + " " + withoutQuery(entry.url), key -> new ArrayList<>()).add(entry);
+    }
+
+    /**
+     * The entry for the same method and path whose query shares the most parameters with the request's,
+     * or null if the path was never recorded.
+     */
+    private Entry closest(Request request) {
+        List<Entry> candidates = entriesByPath.get(request.method() + " " + withoutQuery(request.url()));
+        if (candidates == null) {
+            return null;
+        }
+        List<String> wanted = stableParams(request.url());
+        Entry best = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (Entry candidate : candidates) {
+            List<String> offered = stableParams(candidate.url);
+            int shared = (int) wanted.stream().filter(offered::contains).count();
+            int score = 2 * shared - wanted.size() - offered.size();
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private void serve(Route route, Entry entry) {
+        byte[] body = body(entry);
+        String rangeHeader = route.request().headers().get("range");
+        Matcher range = rangeHeader == null ? null : RANGE.matcher(rangeHeader.trim());
+        if (range == null || entry.status != 200 || !range.matches()
+                || (range.group(1).isEmpty() && range.group(2).isEmpty())) {
+            route.fulfill(new Route.FulfillOptions().setStatus(entry.status).setHeaders(entry.headers).setBodyBytes(body));
+            return;
+        }
+
+        int size = body.length;
+        int start = range.group(1).isEmpty() ? Math.max(0, size - Integer.parseInt(range.group(2))) : Integer.parseInt(range.group(1));
+        int end = range.group(1).isEmpty() || range.group(2).isEmpty()
+                ? size - 1 : Math.min(size - 1, Integer.parseInt(range.group(2)));
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(entry.headers);
+        headers.put("accept-ranges", "bytes");
+        if (start >= size || start > end) {
+            headers.put("content-range", "bytes */" + size);
+            route.fulfill(new Route.FulfillOptions().setStatus(416).setHeaders(headers).setBodyBytes(new byte[0]));
+            return;
+        }
+        headers.put("content-range", "bytes " + start + "-" + end + "/" + size);
+        route.fulfill(new Route.FulfillOptions().setStatus(206).setHeaders(headers)
+                .setBodyBytes(Arrays.copyOfRange(body, start, end + 1)));
+    }
+
+    private byte[] body(Entry entry) {
+        byte[] body = new byte[entry.length];
+        if (bodies != null) {
+            ByteBuffer view = bodies.duplicate();
+            view.position((int) entry.offset);
+            view.get(body);
+            return body;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            while (buffer.hasRemaining()) {
+                if (recording.read(buffer, entry.offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            return body;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the recorded body of " + entry.url, e);
+        }
+    }
+
+    /**
+     * Saves a recording, or reports how well the archive matched this run's requests.
+     */
+    static synchronized void finish() {
+        if (instance == null) {
+            return;
+        }
+        if (MODE == Mode.RECORD) {
+            instance.save();
+        } else {
+            instance.report();
+        }
+        instance = null;
+    }
+
+    private void save() {
+        JsonArray harEntries = new JsonArray();
+        entries.values().stream()
+                .sorted((a, b) -> Long.compare(a.offset, b.offset))
+                .forEach(entry -> harEntries.add(entry.toHar()));
+        JsonObject creator = new JsonObject();
+        creator.addProperty("name", "tinyflix-playwright-tests");
+        creator.addProperty("version", "1.0");
+        JsonObject log = new JsonObject();
+        log.addProperty("version", "1.2");
+        log.add("creator", creator);
+        log.addProperty("comment", recordedAt);
+        log.add("entries", harEntries);
+        JsonObject har = new JsonObject();
+        har.add("log", log);
+        try {
+            recording.force(true);
+            recording.close();
+            Files.move(DIR.resolve(BODIES_FILE + ".tmp"), DIR.resolve(BODIES_FILE), StandardCopyOption.REPLACE_EXISTING);
+            Files.write(DIR.resolve(HAR_FILE),
+                    new GsonBuilder().setPrettyPrinting().create().toJson(har).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save the archive to " + DIR, e);
+        }
+        long bytes = entries.values().stream().mapToLong(entry -> entry.length).sum();
+        System.out.println(String.format(Locale.ROOT, "[replay] recorded %d responses, %.1f MB, to %s",
+                entries.size(), bytes / 1e6, DIR));
+    }
+
+    private void report() {
+        List<Entry> unused = entries.values().stream()
+                .filter(entry -> entry.hits.get() == 0)
+                .sorted((a, b) -> a.url.compareTo(b.url))
+                .collect(Collectors.toList());
+        System.out.println(String.format(Locale.ROOT, "[replay] %d exact and %d fuzzy matches, %d requests missed; "
+                        + "%d of %d archived responses were not requested (archive recorded %s)",
+                exactHits.get(), fuzzyHits.get(), misses.values().stream().mapToInt(AtomicInteger::get).sum(),
+                unused.size(), entries.size(), recordedAt));
+
+        String header = "kind,method,url,archived_url,requests";
+        Map<String, Entry> fuzzy = new TreeMap<>(fuzzyMatches);
+        fuzzy.forEach((request, entry) -> {
+            String[] parts = request.split(" ", 2);
+            System.out.println("  fuzzy: " + request + " served " + entry.url);
+            PerfLog.append("replay.csv", header, Arrays.asList("fuzzy", parts[0], parts[1], entry.url, null));
+        });
+        new TreeMap<>(misses).forEach((request, count) -> {
+            String[] parts = request.split(" ", 2);
+            System.out.println("  missed: " + request + " (" + count + "x)");
+            PerfLog.append("replay.csv", header, Arrays.asList("miss", parts[0], parts[1], null, count.get()));
+        });
+        for (Entry entry : unused) {
+            PerfLog.append("replay.csv", header, Arrays.asList("unused", entry.method, entry.url, entry.url, 0));
+        }
+        if (!misses.isEmpty() || !fuzzy.isEmpty()) {
+            System.out.println("  re-record with -Dtinyflix.replay=record if the app changed");
+        }
+    }
+
+    private static String key(Request request) {
+        return key(request.method(), request.url(), bodyHash(request));
+    }
+
+    private static String key(String method, String url, String bodyHash) {
+        String withoutFragment = url.split("#", 2)[0];
+        return bodyHash == null ? method + " " + withoutFragment : method + " " + withoutFragment + " " + bodyHash;
+    }
+
+    private static String bodyHash(Request request) {
+        byte[] body = request.postDataBuffer();
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String withoutQuery(String url) {
+        return url.split("[?#]", 2)[0];
+    }
+
+    /**
+     * The query's name=value pairs, leaving out parameters that change between runs.
+     */
+    private static List<String> stableParams(String url) {
+        String query = URI.create(url.split("#", 2)[0]).getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(query.split("&"))
+                .filter(pair -> !VOLATILE_PARAMS.contains(pair.split("=", 2)[0]))
+                .collect(Collectors.toList());
+    }
+
+    private static String origin(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getRawAuthority() + "/";
+    }
+
+    /**
+     * One archived response, with the position of its body in bodies.bin.
+     */
+    private static final class Entry {
+
+        final String method;
+        final String url;
+        final String bodyHash;
+        final int status;
+        final String statusText;
+        final Map<String, String> headers;
+        final long offset;
+        final int length;
+        final long timeMs;
+        final AtomicInteger hits = new AtomicInteger();
+
+        Entry(String method, String url, String bodyHash, int status, String statusText, Map<String, String> headers,
+              long offset, int length, long timeMs) {
+            this.method = method;
+            this.url = url;
+            this.bodyHash = bodyHash;
+            this.status = status;
+            this.statusText = statusText;
+            // The body is stored decoded and served whole or as a range, so the wire's framing headers do not apply
+            this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            this.headers.putAll(headers);
+            this.headers.remove("content-encoding");
+            this.headers.remove("content-length");
+            this.headers.remove("content-range");
+            this.headers.remove("transfer-encoding");
+            this.offset = offset;
+            this.length = length;
+            this.timeMs = timeMs;
+        }
+
+        String key() {
+            return NetworkArchive.key(method, url, bodyHash);
+        }
+
+        JsonObject toHar() {
+            JsonObject request = new JsonObject();
+            request.addProperty("method", method);
+            request.addProperty("url", url);
+            request.addProperty("httpVersion", "HTTP/1.1");
+            request.add("headers", new JsonArray());
+            request.add("queryString", new JsonArray());
+            request.addProperty("headersSize", -1);
+            request.addProperty("bodySize", -1);
+            if (bodyHash != null) {
+                request.addProperty("_bodyHash", bodyHash);
+            }
+
+            JsonArray responseHeaders = new JsonArray();
+            headers.forEach((name, value) -> {
+                JsonObject header = new JsonObject();
+                header.addProperty("name", name);
+                header.addProperty("value", value);
+                responseHeaders.add(header);
+            });
+            JsonObject content = new JsonObject();
+            content.addProperty("size", length);
+            content.addProperty("mimeType", headers.getOrDefault("content-type", ""));
+            content.addProperty("_file", BODIES_FILE);
+            content.addProperty("_offset", offset);
+            JsonObject response = new JsonObject();
+            response.addProperty("status", status);
+            response.addProperty("statusText", statusText);
+            response.addProperty("httpVersion", "HTTP/1.1");
+            response.add("headers", responseHeaders);
+            response.add("content", content);
+            response.addProperty("redirectURL", "");
+            response.addProperty("headersSize", -1);
+            response.addProperty("bodySize", length);
+
+            JsonObject timings = new JsonObject();
+            timings.addProperty("send", 0);
+            timings.addProperty("wait", timeMs);
+            timings.addProperty("receive", 0);
+            JsonObject entry = new JsonObject();
+            entry.addProperty("startedDateTime", Instant.now().toString());
+            entry.addProperty("time", timeMs);
+            entry.add("request", request);
+            entry.add("response", response);
+            entry.add("cache", new JsonObject());
+            entry.add("timings", timings);
+            return entry;
+        }
+
+        static Entry fromHar(JsonObject entry) {
+            JsonObject request = entry.getAsJsonObject("request");
+            JsonObject response = entry.getAsJsonObject("response");
+            JsonObject content = response.getAsJsonObject("content");
+            Map<String, String> headers = new HashMap<>();
+            for (JsonElement header : response.getAsJsonArray("headers")) {
+                headers.put(header.getAsJsonObject().get("name").getAsString(), header.getAsJsonObject().get("value").getAsString());
+            }
+            return new Entry(request.get("method").getAsString(), request.get("url").getAsString(),
+                    request.has("_bodyHash") ? request.get("_bodyHash").getAsString() : null,
+                    response.get("status").getAsInt(), response.get("statusText").getAsString(), headers,
+                    content.get("_offset").getAsLong(), content.get("size").getAsInt(), entry.get("time").getAsLong());
+        }
+    }
+}
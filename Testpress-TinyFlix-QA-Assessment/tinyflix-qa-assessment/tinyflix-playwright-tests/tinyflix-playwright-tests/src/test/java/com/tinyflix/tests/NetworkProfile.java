@@ -0,0 +1,89 @@
+package com.tinyflix.tests;
+
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import java.util.Locale;
+
+/**
+ * Network conditions from the test plan, emulated in Chromium with CDP Network.emulateNetworkConditions.
+ *
+ * Select one for a whole run with -Dtinyflix.network=fast|average|slow, or per {@code <test>} with a
+ * {@code network} parameter in the suite file, as network-matrix.xml does.
+ */
+public enum NetworkProfile {
+
+    // Localhost as is, no emulation
+    NONE(0, 0, 0, 0),
+    // Fast (50+ Mbps)
+    FAST(20, 50, 20, 0),
+    // Average (10-20 Mbps)
+    AVERAGE(60, 15, 5, 0),
+    // Slow (< 5 Mbps), on a lossy link
+    SLOW(250, 3, 1, 1);
+
+    private final int latencyMs;
+    private final double downloadMbps;
+    private final double uploadMbps;
+    private final double packetLossPercent;
+
+    NetworkProfile(int latencyMs, double downloadMbps, double uploadMbps, double packetLossPercent) {
+        this.latencyMs = latencyMs;
+        this.downloadMbps = downloadMbps;
+        this.uploadMbps = uploadMbps;
+        this.packetLossPercent = packetLossPercent;
+    }
+
+    /**
+     * Looks up a profile by its case-insensitive name; null or empty means {@link #NONE}.
+     */
+    public static NetworkProfile named(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return NONE;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown network profile '" + name + "', expected none, fast, average or slow", e);
+        }
+    }
+
+    public boolean isThrottled() {
+        return this != NONE;
+    }
+
+    /**
+     * Whether the performance analysis targets hold under this profile. They are stated for a fast
+     * connection, so slower profiles only record their numbers.
+     */
+    public boolean meetsTargets() {
+        return this == NONE || this == FAST;
+    }
+
+    /**
+     * Emulates this profile for everything {@code page} loads. The returned session keeps the
+     * emulation in place until the page closes; it is null for {@link #NONE}.
+     */
+    CDPSession apply(BrowserContext context, Page page) {
+        if (!isThrottled()) {
+            return null;
+        }
+        CDPSession session = context.newCDPSession(page);
+        session.send("Network.enable");
+        JsonObject conditions = new JsonObject();
+        conditions.addProperty("offline", false);
+        conditions.addProperty("latency", latencyMs);
+        // CDP takes throughput in bytes per second
+        conditions.addProperty("downloadThroughput", downloadMbps * 1_000_000 / 8);
+        conditions.addProperty("uploadThroughput", uploadMbps * 1_000_000 / 8);
+        conditions.addProperty("packetLoss", packetLossPercent);
+        session.send("Network.emulateNetworkConditions", conditions);
+        return session;
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
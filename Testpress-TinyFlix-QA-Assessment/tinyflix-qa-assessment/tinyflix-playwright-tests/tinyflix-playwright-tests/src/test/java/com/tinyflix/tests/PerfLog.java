@@ -0,0 +1,93 @@
+package com.tinyflix.tests;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Appends performance results to CSV files under target/perf (override with -Dtinyflix.perf.dir),
+ * next to the TestNG reports. Every row starts with the run's start time and the conditions the test
+ * ran under, e.g. "network=slow;device=mobile", so results from several runs and profiles can share a file.
+ */
+public final class PerfLog {
+
+    private static final Path DIR = Paths.get(System.getProperty("tinyflix.perf.dir", "target/perf"));
+    private static final String RUN = Instant.now().toString();
+    private static final boolean ENFORCE_BUDGETS =
+            Boolean.parseBoolean(System.getProperty("tinyflix.budgets.enforce", "true"));
+
+    // Set by BaseTest for the test running on each worker thread
+    private static final ThreadLocal<String> conditions = ThreadLocal.withInitial(() -> "");
+
+    private PerfLog() {
+    }
+
+    public static Path dir() {
+        return DIR;
+    }
+
+    /**
+     * Whether results over their performance budget fail the test; -Dtinyflix.budgets.enforce=false
+     * only records them.
+     */
+    public static boolean budgetsEnforced() {
+        return ENFORCE_BUDGETS;
+    }
+
+    /**
+     * The conditions rows written from this thread are tagged with, e.g. "network=slow;device=mobile"; empty if none.
+     */
+    public static String conditions() {
+        return conditions.get();
+    }
+
+    static void setConditions(String value) {
+        conditions.set(value);
+    }
+
+    static void clearConditions() {
+        conditions.remove();
+    }
+
+    /**
+     * Appends one row to {@code fileName}, writing {@code header} first if the file is new.
+     */
+    public static synchronized void append(String fileName, String header, List<?> values) {
+        Path file = DIR.resolve(fileName);
+        try {
+            Files.createDirectories(DIR);
+            StringBuilder text = new StringBuilder();
+            if (!Files.exists(file)) {
+                text.append("run,conditions,").append(header).append('\n');
+            }
+            text.append(RUN).append(',').append(csvValue(conditions.get())).append(',')
+                    .append(values.stream().map(PerfLog::csvValue).collect(Collectors.joining(",")))
+                    .append('\n');
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+    }
+
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Double) {
+            return String.format(java.util.Locale.ROOT, "%.3f", (Double) value);
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
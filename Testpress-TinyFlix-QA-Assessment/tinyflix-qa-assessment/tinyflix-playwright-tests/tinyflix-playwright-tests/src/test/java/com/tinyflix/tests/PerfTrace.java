@@ -0,0 +1,309 @@
+package com.tinyflix.tests;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.microsoft.playwright.Browser;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Records a Chromium performance trace around each test method when run with -Dtinyflix.trace=true.
+ *
+ * Traces are written to target/perf/traces and open in the DevTools Performance panel. Each one is also
+ * summarised into scripting, rendering, painting and GC time on the renderer main threads, plus the
+ * longest tasks with the work that dominated them, printed and appended to target/perf/traces.csv.
+ * Times are self times, so a forced layout inside a click handler counts as rendering, not scripting.
+ * Painting is the main thread's share only: rasterisation on the raster and GPU threads is not counted.
+ */
+final class PerfTrace {
+
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("tinyflix.trace", "false"));
+
+    // Main-thread tasks longer than this are long tasks, as in the Long Tasks API
+    private static final double LONG_TASK_MS = 50;
+    private static final int TOP_TASKS = Integer.getInteger("tinyflix.trace.topTasks", 5);
+
+    private static final List<String> CATEGORIES = Arrays.asList(
+            "-*", "toplevel", "devtools.timeline", "disabled-by-default-devtools.timeline",
+            "disabled-by-default-devtools.timeline.frame", "v8.execute", "blink.user_timing", "loading",
+            "disabled-by-default-v8.gc");
+
+    // Only events on CrRendererMain are summarised, so work that runs on raster, GPU or background
+    // threads, e.g. RasterTask, GPUTask or background script parsing, is deliberately not listed
+    private static final Set<String> SCRIPTING = new HashSet<>(Arrays.asList(
+            "EvaluateScript", "v8.compile", "v8.compileModule", "v8.evaluateModule", "FunctionCall",
+            "EventDispatch", "TimerFire", "FireAnimationFrame", "FireIdleCallback", "RunMicrotasks",
+            "XHRReadyStateChange", "XHRLoad", "V8.Execute"));
+    private static final Set<String> RENDERING = new HashSet<>(Arrays.asList(
+            "Layout", "UpdateLayoutTree", "RecalculateStyles", "UpdateLayerTree", "UpdateLayer", "HitTest",
+            "PrePaint", "Layerize", "ScrollLayer", "ParseAuthorStyleSheet"));
+    private static final Set<String> PAINTING = new HashSet<>(Arrays.asList(
+            "Paint", "PaintImage", "PaintSetup", "CompositeLayers", "Decode Image", "Commit"));
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private PerfTrace() {
+    }
+
+    /**
+     * Starts tracing the whole browser; the pool leases a browser to one test at a time, so the trace
+     * only contains that test's pages.
+     */
+    static void start(Browser browser) {
+        browser.startTracing(null, new Browser.StartTracingOptions().setCategories(CATEGORIES));
+    }
+
+    /**
+     * Stops tracing, writes the trace for {@code testName} and reports its summary.
+     */
+    static Summary stop(Browser browser, String testName) {
+        byte[] trace = browser.stopTracing();
+        Path file = PerfLog.dir().resolve("traces")
+                .resolve(String.format(Locale.ROOT, "%s-%03d.json", testName, SEQUENCE.incrementAndGet()));
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, trace);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+
+        Summary summary = summarize(trace);
+        System.out.println("[trace] " + testName + ": " + summary + " (" + file + ")");
+        PerfLog.append("traces.csv",
+                "test,scripting_ms,rendering_ms,painting_ms,gc_ms,long_tasks,longest_task_ms,longest_task,trace",
+                Arrays.asList(testName, summary.scriptingMs, summary.renderingMs, summary.paintingMs, summary.gcMs,
+                        summary.longTaskCount,
+                        summary.longTasks.isEmpty() ? null : summary.longTasks.get(0).durationMs,
+                        summary.longTasks.isEmpty() ? null : summary.longTasks.get(0).attribution,
+                        file.toString()));
+        return summary;
+    }
+
+    /**
+     * Breaks a trace from Browser.stopTracing() down by category and finds its longest tasks.
+     */
+    static Summary summarize(byte[] trace) {
+        JsonElement root = JsonParser.parseString(new String(trace, StandardCharsets.UTF_8));
+        Iterable<JsonElement> events = root.isJsonArray()
+                ? root.getAsJsonArray() : root.getAsJsonObject().getAsJsonArray("traceEvents");
+
+        // Renderer main threads, keyed "pid:tid"; every page in the trace has its own
+        Set<String> mainThreads = new HashSet<>();
+        Map<String, List<Span>> spansByThread = new HashMap<>();
+        Map<String, Deque<Span>> openByThread = new HashMap<>();
+        for (JsonElement element : events) {
+            JsonObject event = element.getAsJsonObject();
+            String phase = string(event, "ph");
+            String thread = string(event, "pid") + ":" + string(event, "tid");
+            String name = string(event, "name");
+            if ("M".equals(phase)) {
+                if ("thread_name".equals(name) && event.has("args")
+                        && "CrRendererMain".equals(string(event.getAsJsonObject("args"), "name"))) {
+                    mainThreads.add(thread);
+                }
+                continue;
+            }
+            if (!event.has("ts")) {
+                continue;
+            }
+            double ts = event.get("ts").getAsDouble();
+            if ("X".equals(phase) && event.has("dur")) {
+                spansByThread.computeIfAbsent(thread, key -> new ArrayList<>())
+                        .add(new Span(name, data(event), ts, ts + event.get("dur").getAsDouble()));
+            } else if ("B".equals(phase)) {
+                openByThread.computeIfAbsent(thread, key -> new ArrayDeque<>()).push(new Span(name, data(event), ts, ts));
+            } else if ("E".equals(phase)) {
+                Deque<Span> open = openByThread.get(thread);
+                if (open != null && !open.isEmpty()) {
+                    Span begun = open.pop();
+                    spansByThread.computeIfAbsent(thread, key -> new ArrayList<>())
+                            .add(new Span(begun.name, begun.data, begun.start, ts));
+                }
+            }
+        }
+
+        Summary summary = new Summary();
+        List<LongTask> longTasks = new ArrayList<>();
+        for (String thread : mainThreads) {
+            List<Span> spans = spansByThread.getOrDefault(thread, new ArrayList<>());
+            spans.sort(Comparator.comparingDouble((Span span) -> span.start).thenComparingDouble(span -> -span.end));
+            Deque<Span> stack = new ArrayDeque<>();
+            for (Span span : spans) {
+                while (!stack.isEmpty() && stack.peek().end <= span.start) {
+                    stack.pop();
+                }
+                Span parent = stack.isEmpty() || span.end > stack.peek().end ? null : stack.peek();
+                span.link(parent);
+                stack.push(span);
+            }
+            for (Span span : spans) {
+                summary.add(span.category, (span.end - span.start - span.childUs) / 1000);
+                if (span.isTask() && (span.end - span.start) / 1000 > LONG_TASK_MS) {
+                    longTasks.add(new LongTask((span.end - span.start) / 1000,
+                            span.attribution == null ? "unattributed" : span.attribution.describe()));
+                }
+            }
+        }
+        longTasks.sort(Comparator.comparingDouble((LongTask task) -> task.durationMs).reversed());
+        summary.longTasks = longTasks.subList(0, Math.min(TOP_TASKS, longTasks.size()));
+        summary.longTaskCount = longTasks.size();
+        return summary;
+    }
+
+    private static String string(JsonObject object, String member) {
+        JsonElement value = object.get(member);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static JsonObject data(JsonObject event) {
+        JsonObject args = event.has("args") && event.get("args").isJsonObject() ? event.getAsJsonObject("args") : null;
+        return args != null && args.has("data") && args.get("data").isJsonObject() ? args.getAsJsonObject("data") : null;
+    }
+
+    private static String categorize(String name) {
+        if (SCRIPTING.contains(name)) {
+            return "scripting";
+        }
+        if (RENDERING.contains(name)) {
+            return "rendering";
+        }
+        if (PAINTING.contains(name)) {
+            return "painting";
+        }
+        if (name.contains("GC")) {
+            return "gc";
+        }
+        return null;
+    }
+
+    /**
+     * One trace event with a duration, nested under the event that encloses it on the same thread.
+     */
+    private static final class Span {
+
+        final String name;
+        final JsonObject data;
+        final double start;
+        final double end;
+        double childUs;
+        String category;
+        // The task this span runs in, and the outermost categorised span that took longest in it
+        Span task;
+        Span attribution;
+
+        Span(String name, JsonObject data, double start, double end) {
+            this.name = name;
+            this.data = data;
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean isTask() {
+            return "RunTask".equals(name) || "ThreadControllerImpl::RunTask".equals(name);
+        }
+
+        void link(Span parent) {
+            String own = categorize(name);
+            category = own != null ? own : parent == null ? null : parent.category;
+            task = isTask() ? this : parent == null ? null : parent.task;
+            if (parent != null) {
+                parent.childUs += end - start;
+            }
+            boolean outermost = own != null && (parent == null || parent.category == null);
+            if (outermost && task != null
+                    && (task.attribution == null || end - start > task.attribution.end - task.attribution.start)) {
+                task.attribution = this;
+            }
+        }
+
+        String describe() {
+            StringBuilder text = new StringBuilder(name);
+            if (data == null) {
+                return text.toString();
+            }
+            if (data.has("type")) {
+                text.append(' ').append(string(data, "type"));
+            }
+            if (data.has("functionName") && !string(data, "functionName").isEmpty()) {
+                text.append(' ').append(string(data, "functionName"));
+            }
+            if (data.has("url") && !string(data, "url").isEmpty()) {
+                text.append(" (").append(string(data, "url"));
+                if (data.has("lineNumber")) {
+                    text.append(':').append(string(data, "lineNumber"));
+                }
+                text.append(')');
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * A main-thread task over 50 ms and the work that took most of it.
+     */
+    static final class LongTask {
+
+        final double durationMs;
+        final String attribution;
+
+        LongTask(double durationMs, String attribution) {
+            this.durationMs = durationMs;
+            this.attribution = attribution;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%.0f ms %s", durationMs, attribution);
+        }
+    }
+
+    /**
+     * Main-thread self time per category, in milliseconds, and the longest tasks, longest first.
+     */
+    static final class Summary {
+
+        double scriptingMs;
+        double renderingMs;
+        double paintingMs;
+        double gcMs;
+        int longTaskCount;
+        List<LongTask> longTasks = new ArrayList<>();
+
+        private void add(String category, double ms) {
+            if ("scripting".equals(category)) {
+                scriptingMs += ms;
+            } else if ("rendering".equals(category)) {
+                renderingMs += ms;
+            } else if ("painting".equals(category)) {
+                paintingMs += ms;
+            } else if ("gc".equals(category)) {
+                gcMs += ms;
+            }
+        }
+
+        @Override
+        public String toString() {
+            String text = String.format(Locale.ROOT, "scripting %.0f ms, rendering %.0f ms, painting %.0f ms, gc %.0f ms, %d long tasks",
+                    scriptingMs, renderingMs, paintingMs, gcMs, longTaskCount);
+            return longTasks.isEmpty() ? text
+                    : text + ": " + longTasks.stream().map(LongTask::toString).collect(Collectors.joining("; "));
+        }
+    }
+}
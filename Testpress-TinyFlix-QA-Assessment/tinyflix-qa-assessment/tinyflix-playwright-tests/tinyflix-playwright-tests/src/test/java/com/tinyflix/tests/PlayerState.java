@@ -0,0 +1,106 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import java.util.Map;
+
+/**
+ * Snapshot of the video player: the {@code <video>} element's media state together with the time
+ * labels the player shows, read in a single driver round trip.
+ */
+public final class PlayerState {
+
+    private static final String SNAPSHOT_SCRIPT = "() => {\n" +
+            "  const video = document.querySelector('video');\n" +
+            "  const labels = Array.from(document.querySelectorAll('.time-control span')).map(span => span.textContent.trim());\n" +
+            "  return {\n" +
+            "    present: video !== null,\n" +
+            "    currentTime: video ? video.currentTime : 0,\n" +
+            "    duration: video && isFinite(video.duration) ? video.duration : 0,\n" +
+            "    paused: video ? video.paused : true,\n" +
+            "    volume: video ? video.volume : 0,\n" +
+            "    muted: video ? video.muted : false,\n" +
+            "    playbackRate: video ? video.playbackRate : 1,\n" +
+            "    currentTimeLabel: labels.length > 0 ? labels[0] : null,\n" +
+            "    durationLabel: labels.length > 1 ? labels[1] : null\n" +
+            "  };\n" +
+            "}";
+
+    private final boolean present;
+    private final double currentTime;
+    private final double duration;
+    private final boolean paused;
+    private final double volume;
+    private final boolean muted;
+    private final double playbackRate;
+    private final String currentTimeLabel;
+    private final String durationLabel;
+
+    private PlayerState(Map<?, ?> state) {
+        this.present = (Boolean) state.get("present");
+        this.currentTime = ((Number) state.get("currentTime")).doubleValue();
+        this.duration = ((Number) state.get("duration")).doubleValue();
+        this.paused = (Boolean) state.get("paused");
+        this.volume = ((Number) state.get("volume")).doubleValue();
+        this.muted = (Boolean) state.get("muted");
+        this.playbackRate = ((Number) state.get("playbackRate")).doubleValue();
+        this.currentTimeLabel = (String) state.get("currentTimeLabel");
+        this.durationLabel = (String) state.get("durationLabel");
+    }
+
+    public static PlayerState snapshot(Page page) {
+        return new PlayerState((Map<?, ?>) page.evaluate(SNAPSHOT_SCRIPT));
+    }
+
+    /**
+     * Whether the page has a {@code <video>} element at all; the media fields are defaults when it has not.
+     */
+    public boolean isPresent() {
+        return present;
+    }
+
+    public double currentTime() {
+        return currentTime;
+    }
+
+    /**
+     * Media duration in seconds, or 0 while it is unknown.
+     */
+    public double duration() {
+        return duration;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public double volume() {
+        return volume;
+    }
+
+    public boolean isMuted() {
+        return muted;
+    }
+
+    public double playbackRate() {
+        return playbackRate;
+    }
+
+    /**
+     * The elapsed time label, e.g. "0:42".
+     */
+    public String currentTimeLabel() {
+        return currentTimeLabel;
+    }
+
+    /**
+     * The total duration label, e.g. "3:15".
+     */
+    public String durationLabel() {
+        return durationLabel;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerState{currentTime=" + currentTime + ", duration=" + duration + ", paused=" + paused + "}";
+    }
+}
@@ -0,0 +1,95 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.WaitForSelectorState;
+import java.util.function.BiConsumer;
+
+/**
+ * Decides when the app counts as ready after navigateToApp().
+ *
+ * Waiting for network idle always costs at least Playwright's 500 ms idle window and never settles
+ * while the app polls or streams video, so the default is to wait for the first video card instead.
+ * Pick another strategy with -Dtinyflix.readiness and -Dtinyflix.readiness.target:
+ * <ul>
+ *   <li>{@code selector} - the target selector is attached (default {@code .video-card})</li>
+ *   <li>{@code window-flag} - {@code window[target] === true} (default {@code __TINYFLIX_READY__})</li>
+ *   <li>{@code performance-mark} - a performance mark named target is recorded (default {@code app-ready})</li>
+ *   <li>{@code network-idle} - the previous behaviour</li>
+ * </ul>
+ */
+public interface ReadinessStrategy {
+
+    String describe();
+
+    void awaitReady(Page page, double timeoutMs);
+
+    static ReadinessStrategy networkIdle() {
+        return of("network-idle", (page, timeoutMs) ->
+                page.waitForLoadState(LoadState.NETWORKIDLE, new Page.WaitForLoadStateOptions().setTimeout(timeoutMs)));
+    }
+
+    static ReadinessStrategy selector(String selector) {
+        return of("selector(" + selector + ")", (page, timeoutMs) ->
+                page.waitForSelector(selector, new Page.WaitForSelectorOptions()
+                        .setState(WaitForSelectorState.ATTACHED)
+                        .setTimeout(timeoutMs)));
+    }
+
+    static ReadinessStrategy windowFlag(String flag) {
+        return of("window-flag(" + flag + ")", (page, timeoutMs) ->
+                page.waitForFunction("flag => window[flag] === true", flag,
+                        new Page.WaitForFunctionOptions().setTimeout(timeoutMs)));
+    }
+
+    static ReadinessStrategy performanceMark(String mark) {
+        // Resolves from a buffered PerformanceObserver, so a mark made before the wait started still counts
+        return of("performance-mark(" + mark + ")", (page, timeoutMs) ->
+                page.evaluate("([mark, timeoutMs]) => new Promise((resolve, reject) => {\n" +
+                        "  const observer = new PerformanceObserver(list => {\n" +
+                        "    if (list.getEntriesByName(mark).length > 0) {\n" +
+                        "      observer.disconnect();\n" +
+                        "      clearTimeout(deadline);\n" +
+                        "      resolve(true);\n" +
+                        "    }\n" +
+                        "  });\n" +
+                        "  const deadline = setTimeout(() => {\n" +
+                        "    observer.disconnect();\n" +
+                        "    reject(new Error('Performance mark ' + mark + ' not recorded within ' + timeoutMs + ' ms'));\n" +
+                        "  }, timeoutMs);\n" +
+                        "  observer.observe({ type: 'mark', buffered: true });\n" +
+                        "})", java.util.Arrays.asList(mark, timeoutMs)));
+    }
+
+    static ReadinessStrategy fromSystemProperties() {
+        String kind = System.getProperty("tinyflix.readiness", "selector");
+        String target = System.getProperty("tinyflix.readiness.target");
+        switch (kind) {
+            case "selector":
+                return selector(target != null ? target : ".video-card");
+            case "window-flag":
+                return windowFlag(target != null ? target : "__TINYFLIX_READY__");
+            case "performance-mark":
+                return performanceMark(target != null ? target : "app-ready");
+            case "network-idle":
+                return networkIdle();
+            default:
+                throw new IllegalArgumentException("Unknown readiness strategy: " + kind
+                        + " (expected selector, window-flag, performance-mark or network-idle)");
+        }
+    }
+
+    private static ReadinessStrategy of(String description, BiConsumer<Page, Double> await) {
+        return new ReadinessStrategy() {
+            @Override
+            public String describe() {
+                return description;
+            }
+
+            @Override
+            public void awaitReady(Page page, double timeoutMs) {
+                await.accept(page, timeoutMs);
+            }
+        };
+    }
+}
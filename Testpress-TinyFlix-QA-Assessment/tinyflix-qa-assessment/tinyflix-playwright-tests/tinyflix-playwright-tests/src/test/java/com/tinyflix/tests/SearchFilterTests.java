@@ -10,22 +10,22 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Get initial video count
-        int initialCount = page.locator(".video-card").count();
+        int initialCount = page().locator(".video-card").count();
         assertTrue(initialCount > 0, "There should be videos displayed initially");
         
         // Search for a specific title
-        page.locator("input[placeholder*='Search videos']").fill("React Basics");
+        page().locator("input[placeholder*='Search videos']").fill("React Basics");
         
-        // Wait for search results
-        wait(500);
+        // Wait for the list to show only matching videos
+        waitForCards(cards -> cards.stream().allMatch(card -> card.mentions("React Basics")), 5000);
         
         // Verify search results
-        int searchResultCount = page.locator(".video-card").count();
+        int searchResultCount = page().locator(".video-card").count();
         assertTrue(searchResultCount > 0, "Search should return at least one result");
         assertTrue(searchResultCount <= initialCount, "Search should filter the videos");
         
         // Verify search result contains the search term
-        assertTrue(page.locator(".video-card h3:has-text('React Basics')").isVisible(), 
+        assertTrue(page().locator(".video-card h3:has-text('React Basics')").isVisible(), 
                 "Search results should include videos with matching title");
     }
     
@@ -34,17 +34,17 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Search for a term in description
-        page.locator("input[placeholder*='Search videos']").fill("fundamentals");
+        page().locator("input[placeholder*='Search videos']").fill("fundamentals");
         
-        // Wait for search results
-        wait(500);
+        // Wait for the list to show only matching videos
+        waitForCards(cards -> cards.stream().allMatch(card -> card.mentions("fundamentals")), 5000);
         
         // Verify search results
-        int searchResultCount = page.locator(".video-card").count();
+        int searchResultCount = page().locator(".video-card").count();
         assertTrue(searchResultCount > 0, "Search should return at least one result");
         
         // Verify search result contains the search term in description
-        assertTrue(page.locator(".video-card .video-description:has-text('fundamentals')").isVisible(), 
+        assertTrue(page().locator(".video-card .video-description:has-text('fundamentals')").isVisible(), 
                 "Search results should include videos with matching description");
     }
     
@@ -53,17 +53,17 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Search for a specific tag
-        page.locator("input[placeholder*='Search videos']").fill("javascript");
+        page().locator("input[placeholder*='Search videos']").fill("javascript");
         
-        // Wait for search results
-        wait(500);
+        // Wait for the list to show only matching videos
+        waitForCards(cards -> cards.stream().allMatch(card -> card.mentions("javascript")), 5000);
         
         // Verify search results
-        int searchResultCount = page.locator(".video-card").count();
+        int searchResultCount = page().locator(".video-card").count();
         
         // Verify search result contains the search term in tags
         if (searchResultCount > 0) {
-            assertTrue(page.locator(".video-card .tag:has-text('javascript')").isVisible(), 
+            assertTrue(page().locator(".video-card .tag:has-text('javascript')").isVisible(), 
                     "Search results should include videos with matching tags");
         }
     }
@@ -73,16 +73,16 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Get initial video count
-        int initialCount = page.locator(".video-card").count();
+        int initialCount = page().locator(".video-card").count();
         
         // Select "Recent" filter
-        page.locator("select").first().selectOption("recent");
+        page().locator("select").first().selectOption("recent");
         
-        // Wait for filter to apply
-        wait(500);
+        // The cards do not show upload dates, so wait as long as the list keeps changing
+        waitForDomToSettle(500, 5000);
         
         // Verify filter results
-        int filteredCount = page.locator(".video-card").count();
+        int filteredCount = page().locator(".video-card").count();
         assertTrue(filteredCount <= initialCount, "Filter should reduce or maintain the number of videos");
     }
     
@@ -91,13 +91,14 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Select "Popular" filter
-        page.locator("select").first().selectOption("popular");
+        page().locator("select").first().selectOption("popular");
         
-        // Wait for filter to apply
-        wait(500);
+        // Wait for the list to show only videos with thousands of views or more
+        waitForCards(cards -> cards.stream().allMatch(card -> card.views() != null
+                && (card.views().contains("K views") || card.views().contains("M views"))), 5000);
         
         // Verify filter results
-        int filteredCount = page.locator(".video-card").count();
+        int filteredCount = page().locator(".video-card").count();
         
         // Bug #8: Filter logic for "popular" videos is hardcoded
         // We can't directly test the hardcoded value, but we can check if filtering works
@@ -109,8 +110,8 @@ public class SearchFilterTests extends BaseTest {
         } else {
             // Verify that the displayed videos have high view counts
             // This is an indirect test since we can't access the internal logic directly
-            assertTrue(page.locator(".video-card .video-meta:has-text('K views')").isVisible() || 
-                       page.locator(".video-card .video-meta:has-text('M views')").isVisible(),
+            assertTrue(page().locator(".video-card .video-meta:has-text('K views')").isVisible() || 
+                       page().locator(".video-card .video-meta:has-text('M views')").isVisible(),
                     "Popular videos should have high view counts");
         }
     }
@@ -120,13 +121,20 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Select "Sort by Title" option
-        page.locator("select").nth(1).selectOption("title");
-        
-        // Wait for sort to apply
-        wait(500);
+        page().locator("select").nth(1).selectOption("title");
+        
+        // Wait for the list to be in title order
+        waitForCards(cards -> {
+            for (int i = 0; i < cards.size() - 1; i++) {
+                if (cards.get(i).title().compareToIgnoreCase(cards.get(i + 1).title()) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }, 5000);
         
         // Get all video titles
-        String[] titles = page.locator(".video-card h3").allTextContents().toArray(new String[0]);
+        String[] titles = VideoCard.snapshotAll(page()).stream().map(VideoCard::title).toArray(String[]::new);
         
         // Verify at least 2 videos are present for meaningful sort test
         if (titles.length >= 2) {
@@ -143,14 +151,14 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Select "Sort by Date" option
-        page.locator("select").nth(1).selectOption("date");
+        page().locator("select").nth(1).selectOption("date");
         
-        // Wait for sort to apply
-        wait(500);
+        // The cards do not show upload dates, so wait as long as the list keeps changing
+        waitForDomToSettle(500, 5000);
         
         // We can't directly verify the sort order without accessing the internal data
         // But we can verify the sort option is applied correctly
-        assertEquals(page.locator("select").nth(1).inputValue(), "date",
+        assertEquals(page().locator("select").nth(1).inputValue(), "date",
                 "Sort by Date option should be selected");
     }
     
@@ -159,23 +167,31 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Select "Sort by Rating" option
-        page.locator("select").nth(1).selectOption("rating");
-        
-        // Wait for sort to apply
-        wait(500);
-        
-        // Get all video ratings
-        Locator ratingElements = page.locator(".video-card .video-meta span:has-text('⭐')");
-        int count = ratingElements.count();
-        
-        // Verify at least 2 videos are present for meaningful sort test
-        if (count >= 2) {
-            double[] ratings = new double[count];
-            for (int i = 0; i < count; i++) {
-                String ratingText = ratingElements.nth(i).textContent().replace("⭐", "").trim();
-                ratings[i] = Double.parseDouble(ratingText);
+        page().locator("select").nth(1).selectOption("rating");
+        
+        // Wait for the rated videos to be in descending order
+        waitForCards(cards -> {
+            double previous = Double.MAX_VALUE;
+            for (VideoCard card : cards) {
+                if (card.rating() != null) {
+                    if (card.rating() > previous) {
+                        return false;
+                    }
+                    previous = card.rating();
+                }
             }
-            
+            return true;
+        }, 5000);
+        
+        // Snapshot every card in one round trip
+        java.util.List<VideoCard> cards = VideoCard.snapshotAll(page());
+        
+        // Verify at least 2 rated videos are present for meaningful sort test
+        double[] ratings = cards.stream()
+                .filter(card -> card.rating() != null)
+                .mapToDouble(VideoCard::rating)
+                .toArray();
+        if (ratings.length >= 2) {
             // Check if ratings are sorted in descending order
             for (int i = 0; i < ratings.length - 1; i++) {
                 assertTrue(ratings[i] >= ratings[i + 1],
@@ -189,13 +205,13 @@ public class SearchFilterTests extends BaseTest {
         navigateToApp();
         
         // Search for a term that won't match any videos
-        page.locator("input[placeholder*='Search videos']").fill("xyznonexistentterm123");
+        page().locator("input[placeholder*='Search videos']").fill("xyznonexistentterm123");
         
         // Wait for search results
-        wait(500);
+        waitForCount(page().locator(".video-card"), 0, 5000);
         
         // Verify no videos are displayed
-        assertEquals(page.locator(".video-card").count(), 0,
+        assertEquals(page().locator(".video-card").count(), 0,
                 "No videos should be displayed for non-matching search term");
 
     }
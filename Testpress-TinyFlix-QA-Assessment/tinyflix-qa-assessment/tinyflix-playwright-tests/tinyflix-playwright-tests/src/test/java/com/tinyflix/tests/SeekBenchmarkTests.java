@@ -0,0 +1,106 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Locator;
+import org.testng.annotations.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.testng.Assert.*;
+
+public class SeekBenchmarkTests extends BaseTest {
+
+    private static final int ITERATIONS = Integer.getInteger("tinyflix.bench.iterations", 20);
+    // Seeks over at most this much media time are near, longer ones far
+    private static final double NEAR_SECONDS = Double.parseDouble(System.getProperty("tinyflix.bench.nearSeekSeconds", "10"));
+    private static final double SEEK_TIMEOUT_MS = 5_000;
+    // A trigger that has not caused a single seek in this many tries is taken to be broken, e.g. Bug #1
+    private static final int GIVE_UP_AFTER_MISSES = 3;
+
+    @Test(description = "Seeks by bookmark, keyboard and currentTime should reach the new position quickly")
+    public void testSeekLatency() {
+        // Latencies per trigger, distance bucket and end point, e.g. "bookmark far to-seeked"
+        Map<String, LatencyStats> stats = new LinkedHashMap<>();
+        Map<String, Integer> missed = new LinkedHashMap<>();
+        MediaServer server = MediaServer.fromSystemProperties();
+        try {
+            // Served locally when test videos are available, so seeks do not depend on the media host
+            if (server != null) {
+                server.route(page());
+                navigateToApp();
+                selectVideo("React Basics");
+            } else {
+                openVideo("React Basics");
+            }
+            SeekProbe.install(page());
+            double duration = SeekProbe.awaitDuration(page(), 30_000);
+            assertTrue(duration > 2 * NEAR_SECONDS, "The video should be long enough for far seeks: " + duration + " s");
+
+            // Alternate near and far targets; which bucket a seek lands in is decided by the distance measured
+            for (int i = 0; i < ITERATIONS; i++) {
+                double far = i % 2 == 0 ? 0.8 * duration : 0.1 * duration;
+                SeekProbe.seekTo(page(), far);
+                record(stats, missed, "currentTime", SeekProbe.await(page(), SEEK_TIMEOUT_MS));
+                SeekProbe.seekTo(page(), far + NEAR_SECONDS / 2);
+                record(stats, missed, "currentTime", SeekProbe.await(page(), SEEK_TIMEOUT_MS));
+            }
+
+            Locator progressBar = page().locator(".time-control input[type='range']");
+            for (int i = 0; i < ITERATIONS && !givenUp(stats, missed, "progress-bar keys"); i++) {
+                for (String key : new String[]{"ArrowRight", "ArrowLeft", "PageUp", "Home"}) {
+                    progressBar.focus();
+                    SeekProbe.arm(page());
+                    page().keyboard().press(key);
+                    record(stats, missed, "progress-bar keys", SeekProbe.await(page(), SEEK_TIMEOUT_MS));
+                }
+            }
+
+            // Bookmarks near the start and near the end, jumped to from close by and from the other end
+            double[] marks = {0.1 * duration, 0.8 * duration};
+            for (double mark : marks) {
+                SeekProbe.seekTo(page(), mark);
+                SeekProbe.await(page(), SEEK_TIMEOUT_MS);
+                page().locator("button[aria-label='Add bookmark']").click();
+            }
+            Locator bookmarks = page().locator(".bookmark-item button");
+            for (int i = 0; i < ITERATIONS && !givenUp(stats, missed, "bookmark"); i++) {
+                int target = i % 2;
+                double from = i % 4 < 2 ? marks[1 - target] : marks[target] + NEAR_SECONDS / 2;
+                SeekProbe.seekTo(page(), from);
+                SeekProbe.await(page(), SEEK_TIMEOUT_MS);
+                SeekProbe.arm(page());
+                bookmarks.nth(target).click();
+                record(stats, missed, "bookmark", SeekProbe.await(page(), SEEK_TIMEOUT_MS));
+            }
+
+            String variant = server == null ? "" : server.conditions();
+            for (LatencyStats seek : stats.values()) {
+                seek.report(variant);
+            }
+            missed.forEach((trigger, count) -> System.out.println("seek " + trigger + ": " + count
+                    + " triggers did not seek within " + (long) SEEK_TIMEOUT_MS + " ms"));
+
+            assertTrue(stats.containsKey("currentTime near to-seeked") && stats.containsKey("currentTime far to-seeked"),
+                    "Setting currentTime should seek the video: " + stats.keySet());
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private boolean givenUp(Map<String, LatencyStats> stats, Map<String, Integer> missed, String trigger) {
+        return missed.getOrDefault(trigger, 0) >= GIVE_UP_AFTER_MISSES
+                && stats.keySet().stream().noneMatch(metric -> metric.startsWith(trigger + " "));
+    }
+
+    private void record(Map<String, LatencyStats> stats, Map<String, Integer> missed, String trigger, Map<String, Double> seek) {
+        if (seek == null) {
+            missed.merge(trigger, 1, Integer::sum);
+            return;
+        }
+        String bucket = trigger + (seek.get("distance") <= NEAR_SECONDS ? " near" : " far");
+        stats.computeIfAbsent(bucket + " to-seeked", metric -> new LatencyStats("seek", metric)).add(seek.get("seeked"));
+        if (seek.containsKey("firstFrame")) {
+            stats.computeIfAbsent(bucket + " to-first-frame", metric -> new LatencyStats("seek", metric)).add(seek.get("firstFrame"));
+        }
+    }
+}
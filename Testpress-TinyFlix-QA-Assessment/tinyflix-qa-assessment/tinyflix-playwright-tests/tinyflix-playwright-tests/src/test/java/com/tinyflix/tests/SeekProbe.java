@@ -0,0 +1,121 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.TimeoutError;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times seeks on the page's {@code <video>} element, from whatever triggered them to the {@code seeked}
+ * event and to the first frame presented at the new position, as reported by
+ * {@code requestVideoFrameCallback}.
+ *
+ * The trigger is the click or key press that follows {@link #arm(Page)}, or the {@code currentTime}
+ * set by {@link #seekTo(Page, double)}.
+ */
+final class SeekProbe {
+
+    // How far the first frame's media time may be from the seek target to count as "at the new position"
+    private static final double FRAME_TOLERANCE_SECONDS = 0.5;
+
+    private static final String INSTALL_SCRIPT = "(tolerance) => {\n" +
+            "  const video = document.querySelector('video');\n" +
+            "  if (window.__tinyflixSeek) return;\n" +
+            "  const probe = window.__tinyflixSeek = { trigger: null, from: null, target: null, seeked: null, frame: null };\n" +
+            "  const onInput = event => {\n" +
+            "    if (probe.trigger === null) probe.trigger = event.timeStamp;\n" +
+            "  };\n" +
+            "  ['click', 'keydown'].forEach(type => document.addEventListener(type, onInput, true));\n" +
+            "  const awaitFrame = () => video.requestVideoFrameCallback((now, metadata) => {\n" +
+            "    if (Math.abs(metadata.mediaTime - probe.target) <= tolerance) {\n" +
+            "      probe.frame = metadata.presentationTime || now;\n" +
+            "    } else {\n" +
+            "      awaitFrame();\n" +
+            "    }\n" +
+            "  });\n" +
+            "  video.addEventListener('seeking', () => {\n" +
+            "    if (probe.from === null || probe.target !== null) return;\n" +
+            "    probe.target = video.currentTime;\n" +
+            "    if (typeof video.requestVideoFrameCallback === 'function') awaitFrame();\n" +
+            "  });\n" +
+            "  video.addEventListener('seeked', () => {\n" +
+            "    if (probe.target !== null && probe.seeked === null) probe.seeked = performance.now();\n" +
+            "  });\n" +
+            "}";
+
+    private static final String ARM_SCRIPT = "() => {\n" +
+            "  const probe = window.__tinyflixSeek;\n" +
+            "  probe.trigger = null;\n" +
+            "  probe.target = null;\n" +
+            "  probe.seeked = null;\n" +
+            "  probe.frame = null;\n" +
+            "  probe.from = document.querySelector('video').currentTime;\n" +
+            "}";
+
+    private static final String COMPLETE_CONDITION = "() => {\n" +
+            "  const probe = window.__tinyflixSeek;\n" +
+            "  return probe.trigger !== null && probe.seeked !== null &&\n" +
+            "      (probe.frame !== null || typeof HTMLVideoElement.prototype.requestVideoFrameCallback !== 'function');\n" +
+            "}";
+
+    private SeekProbe() {
+    }
+
+    /**
+     * Installs the probe on the video player; call after selecting a video.
+     */
+    static void install(Page page) {
+        page.waitForSelector("video");
+        page.evaluate(INSTALL_SCRIPT, FRAME_TOLERANCE_SECONDS);
+    }
+
+    /**
+     * Forgets the previous seek; call right before the click or key press that should seek.
+     */
+    static void arm(Page page) {
+        page.evaluate(ARM_SCRIPT);
+    }
+
+    /**
+     * Arms the probe and seeks by setting {@code currentTime} directly.
+     */
+    static void seekTo(Page page, double seconds) {
+        arm(page);
+        page.evaluate("(seconds) => {\n" +
+                "  window.__tinyflixSeek.trigger = performance.now();\n" +
+                "  document.querySelector('video').currentTime = seconds;\n" +
+                "}", seconds);
+    }
+
+    /**
+     * Waits for the armed seek to finish and returns "seeked" and "firstFrame" in milliseconds after the
+     * trigger and "distance" in seconds of media time, or null if the trigger did not seek at all.
+     */
+    static Map<String, Double> await(Page page, double timeoutMs) {
+        try {
+            page.waitForFunction(COMPLETE_CONDITION, null, new Page.WaitForFunctionOptions().setTimeout(timeoutMs));
+        } catch (TimeoutError e) {
+            return null;
+        }
+        Map<?, ?> probe = (Map<?, ?>) page.evaluate("() => window.__tinyflixSeek");
+        double trigger = ((Number) probe.get("trigger")).doubleValue();
+
+        Map<String, Double> timings = new LinkedHashMap<>();
+        timings.put("seeked", ((Number) probe.get("seeked")).doubleValue() - trigger);
+        if (probe.get("frame") instanceof Number) {
+            timings.put("firstFrame", ((Number) probe.get("frame")).doubleValue() - trigger);
+        }
+        timings.put("distance", Math.abs(((Number) probe.get("target")).doubleValue() - ((Number) probe.get("from")).doubleValue()));
+        return timings;
+    }
+
+    /**
+     * The video's duration in seconds once its metadata has loaded.
+     */
+    static double awaitDuration(Page page, double timeoutMs) {
+        page.waitForFunction("() => { const video = document.querySelector('video');\n" +
+                "  return video && video.readyState >= 1 && isFinite(video.duration); }",
+                null, new Page.WaitForFunctionOptions().setTimeout(timeoutMs));
+        return ((Number) page.evaluate("() => document.querySelector('video').duration")).doubleValue();
+    }
+}
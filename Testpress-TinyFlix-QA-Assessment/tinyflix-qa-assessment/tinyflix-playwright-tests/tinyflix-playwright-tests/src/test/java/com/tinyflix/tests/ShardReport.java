@@ -0,0 +1,167 @@
+package com.tinyflix.tests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Merges the shard-K-of-N.csv files that sharded runs leave in target/perf into one result, e.g. after
+ * CI has collected them from every agent:
+ *
+ * <pre>
+ * java -cp target/test-classes com.tinyflix.tests.ShardReport target/perf
+ * </pre>
+ *
+ * Prints per-shard predicted and actual time and the failed tests, writes all results to
+ * merged-results.csv and exits non-zero if a test failed or a shard is missing. Only the latest run of
+ * each shard counts.
+ */
+public final class ShardReport {
+
+    private static final Pattern SHARD_FILE = Pattern.compile("shard-(\\d+)-of-(\\d+)\\.csv");
+
+    private ShardReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "target/perf");
+        Map<Integer, List<Map<String, String>>> resultsByShard = new TreeMap<>();
+        int shardCount = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "shard-*-of-*.csv")) {
+            for (Path file : files) {
+                Matcher name = SHARD_FILE.matcher(file.getFileName().toString());
+                if (name.matches()) {
+                    shardCount = Math.max(shardCount, Integer.parseInt(name.group(2)));
+                    resultsByShard.put(Integer.parseInt(name.group(1)), latestRun(read(file)));
+                }
+            }
+        }
+        if (resultsByShard.isEmpty()) {
+            System.out.println("No shard results in " + dir);
+            System.exit(2);
+        }
+
+        Map<Integer, Map<String, String>> summaries = new HashMap<>();
+        Path summaryFile = dir.resolve("shards.csv");
+        if (Files.exists(summaryFile)) {
+            for (Map<String, String> row : read(summaryFile)) {
+                // Rows are appended in run order, so the last one per shard is the latest
+                summaries.put(Integer.parseInt(row.get("shard")), row);
+            }
+        }
+
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        List<String> failures = new ArrayList<>();
+        StringBuilder merged = new StringBuilder("shard,test,status,duration_ms\n");
+        for (Map.Entry<Integer, List<Map<String, String>>> shard : resultsByShard.entrySet()) {
+            Map<String, String> summary = summaries.get(shard.getKey());
+            System.out.println(String.format(Locale.ROOT, "shard %d/%d: %d results%s", shard.getKey(), shardCount,
+                    shard.getValue().size(), summary == null ? "" : String.format(Locale.ROOT, ", predicted %.1f s, took %.1f s",
+                            Long.parseLong(summary.get("predicted_ms")) / 1000.0, Long.parseLong(summary.get("wall_ms")) / 1000.0)));
+            for (Map<String, String> result : shard.getValue()) {
+                String status = result.get("status");
+                if ("passed".equals(status)) {
+                    passed++;
+                } else if ("failed".equals(status)) {
+                    failed++;
+                    failures.add(result.get("test") + " (shard " + shard.getKey() + ")");
+                } else {
+                    skipped++;
+                }
+                merged.append(shard.getKey()).append(',').append(result.get("test")).append(',')
+                        .append(status).append(',').append(result.get("duration_ms")).append('\n');
+            }
+        }
+        Files.write(dir.resolve("merged-results.csv"), merged.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Integer> missing = new ArrayList<>();
+        for (int shard = 1; shard <= shardCount; shard++) {
+            if (!resultsByShard.containsKey(shard)) {
+                missing.add(shard);
+            }
+        }
+        System.out.println("Tests: " + (passed + failed + skipped) + " (" + passed + " passed, " + failed + " failed, "
+                + skipped + " skipped)");
+        failures.forEach(test -> System.out.println("  FAILED " + test));
+        if (!missing.isEmpty()) {
+            System.out.println("Missing shards: " + missing);
+        }
+        System.exit(failed > 0 || !missing.isEmpty() ? 1 : 0);
+    }
+
+    private static List<Map<String, String>> latestRun(List<Map<String, String>> rows) {
+        String latest = rows.stream().map(row -> row.get("run")).max(String::compareTo).orElse(null);
+        List<Map<String, String>> results = new ArrayList<>();
+        for (Map<String, String> row : rows) {
+            if (row.get("run").equals(latest)) {
+                results.add(row);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reads a PerfLog CSV file into one map per row, keyed by the header.
+     */
+    static List<Map<String, String>> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<Map<String, String>> rows = new ArrayList<>();
+        if (lines.isEmpty()) {
+            return rows;
+        }
+        List<String> header = split(lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            List<String> values = split(line);
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                row.put(header.get(i), values.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,55 @@
+package com.tinyflix.tests;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic catalog of fake videos in the shape the TinyFlix data endpoint returns, for
+ * benchmarks that need far more titles than the demo data has. The same size always produces the
+ * same catalog, and the first video is always "React Basics" so the usual flows still work.
+ */
+final class SyntheticCatalog {
+
+    private static final String[] TOPICS = {
+            "React", "JavaScript", "CSS", "Node", "Testing", "TypeScript", "Accessibility", "Performance"};
+    private static final String[] LEVELS = {"Basics", "Deep Dive", "Patterns", "in Practice", "Crash Course"};
+    private static final LocalDate NEWEST_UPLOAD = LocalDate.of(2024, 1, 1);
+    // An inline 320x180 grey image, so tens of thousands of cards load no thumbnails over the network
+    private static final String THUMBNAIL = "data:image/svg+xml,%3Csvg xmlns='http://www.w3.org/2000/svg' "
+            + "width='320' height='180'%3E%3Crect width='320' height='180' fill='%23444'/%3E%3C/svg%3E";
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * Returns {@code size} videos as a JSON array.
+     */
+    static String json(int size) {
+        Random random = new Random(size);
+        StringBuilder json = new StringBuilder(size * 320).append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendVideo(json, i, random);
+        }
+        return json.append(']').toString();
+    }
+
+    private static void appendVideo(StringBuilder json, int index, Random random) {
+        String topic = TOPICS[index % TOPICS.length];
+        String title = index == 0 ? "React Basics" : topic + " " + LEVELS[random.nextInt(LEVELS.length)] + " #" + index;
+        String tag = topic.toLowerCase(Locale.ROOT);
+        json.append("{\"id\":").append(index + 1)
+                .append(",\"title\":\"").append(title).append('"')
+                .append(",\"description\":\"Learn the fundamentals of ").append(topic).append(" in part ").append(index).append(".\"")
+                .append(",\"thumbnail\":\"").append(THUMBNAIL).append('"')
+                .append(",\"videoUrl\":\"/videos/sample.mp4\"")
+                .append(",\"duration\":").append(60 + random.nextInt(3600))
+                .append(",\"views\":").append(random.nextInt(2_000_000))
+                .append(",\"rating\":").append(String.format(Locale.ROOT, "%.1f", 1 + random.nextInt(41) / 10.0))
+                .append(",\"uploadDate\":\"").append(NEWEST_UPLOAD.minusDays(random.nextInt(1000))).append('"')
+                .append(",\"tags\":[\"").append(tag).append("\",\"tutorial\"]}");
+    }
+}
@@ -0,0 +1,51 @@
+package com.tinyflix.tests;
+
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Deterministic comment threads in the shape the TinyFlix comments endpoint returns, for benchmarks
+ * that need far bigger threads than a test can post through the UI.
+ */
+final class SyntheticComments {
+
+    private static final String[] AUTHORS = {"alex", "sam", "priya", "chen", "maria", "kofi"};
+    private static final Instant NEWEST_COMMENT = Instant.parse("2024-01-01T12:00:00Z");
+
+    private SyntheticComments() {
+    }
+
+    /**
+     * Returns {@code count} top-level comments, each with {@code repliesPerComment} replies, as a JSON array.
+     */
+    static String json(int count, int repliesPerComment) {
+        Random random = new Random(count * 31L + repliesPerComment);
+        StringBuilder json = new StringBuilder(count * (1 + repliesPerComment) * 160).append('[');
+        int id = 1;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendFields(json, id++, "Comment " + i + " on this video", random);
+            json.append(",\"replies\":[");
+            for (int r = 0; r < repliesPerComment; r++) {
+                if (r > 0) {
+                    json.append(',');
+                }
+                appendFields(json, id++, "Reply " + r + " to comment " + i, random);
+                json.append('}');
+            }
+            json.append("]}");
+        }
+        return json.append(']').toString();
+    }
+
+    // Opens the object and writes the fields shared by comments and replies; the caller closes it
+    private static void appendFields(StringBuilder json, int id, String text, Random random) {
+        json.append("{\"id\":").append(id)
+                .append(",\"author\":\"").append(AUTHORS[random.nextInt(AUTHORS.length)]).append('"')
+                .append(",\"text\":\"").append(text).append('"')
+                .append(",\"timestamp\":\"").append(NEWEST_COMMENT.minusSeconds(random.nextInt(10_000_000))).append('"')
+                .append(",\"likes\":").append(random.nextInt(500));
+    }
+}
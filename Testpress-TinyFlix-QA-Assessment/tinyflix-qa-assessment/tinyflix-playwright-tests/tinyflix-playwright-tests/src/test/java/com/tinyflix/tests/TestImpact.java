@@ -0,0 +1,102 @@
+package com.tinyflix.tests;
+
+import org.testng.IMethodInstance;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the tests affected by a change from the coverage {@link CoverageRecorder} recorded.
+ *
+ * Pass the changed app files with -Dtinyflix.changed=src/App.jsx,src/components/VideoPlayer.jsx, or
+ * -Dtinyflix.changed=@changed.txt for a file with one path per line (e.g. from git diff --name-only).
+ * A test runs if it ran one of the changed files, has no recorded coverage yet, or is in the safety
+ * set, -Dtinyflix.impact.safety (test classes or Class.method names, default VideoPlaybackTests).
+ * A change to anything but a script, such as a stylesheet or package.json, runs every test.
+ */
+final class TestImpact {
+
+    private static final String CHANGED = System.getProperty("tinyflix.changed");
+    private static final List<String> SAFETY_SET = Arrays.asList(
+            System.getProperty("tinyflix.impact.safety", "VideoPlaybackTests").split("\\s*,\\s*"));
+    private static final List<String> SCRIPT_EXTENSIONS = Arrays.asList(".js", ".jsx", ".mjs", ".ts", ".tsx");
+
+    private TestImpact() {
+    }
+
+    static boolean isEnabled() {
+        return CHANGED != null && !CHANGED.trim().isEmpty();
+    }
+
+    /**
+     * The methods to run for the configured change, in their original order.
+     */
+    static List<IMethodInstance> select(List<IMethodInstance> methods, String block) {
+        List<String> changed = changedFiles();
+        List<String> notScripts = changed.stream()
+                .filter(path -> SCRIPT_EXTENSIONS.stream().noneMatch(path.toLowerCase(Locale.ROOT)::endsWith))
+                .collect(Collectors.toList());
+        if (!notScripts.isEmpty()) {
+            System.out.println("[impact] " + block + ": running all " + methods.size()
+                    + " methods, coverage cannot tell who uses " + notScripts);
+            return methods;
+        }
+
+        Map<String, Set<String>> coverage = CoverageRecorder.load();
+        List<IMethodInstance> selected = new ArrayList<>();
+        int affected = 0;
+        int unknown = 0;
+        for (IMethodInstance method : methods) {
+            String test = TestScheduler.key(method.getMethod());
+            Set<String> files = coverage.get(test);
+            if (files == null) {
+                unknown++;
+                selected.add(method);
+            } else if (files.stream().anyMatch(file -> changed.stream().anyMatch(path -> samePath(file, path)))) {
+                affected++;
+                selected.add(method);
+            } else if (SAFETY_SET.contains(test) || SAFETY_SET.contains(method.getMethod().getRealClass().getSimpleName())) {
+                selected.add(method);
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "[impact] %s: %d of %d methods for %d changed files "
+                        + "(%d affected, %d without coverage, %d safety)", block, selected.size(), methods.size(),
+                changed.size(), affected, unknown, selected.size() - affected - unknown));
+        return selected;
+    }
+
+    private static List<String> changedFiles() {
+        List<String> paths;
+        if (CHANGED.startsWith("@")) {
+            try {
+                paths = Files.readAllLines(Paths.get(CHANGED.substring(1)), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read changed files from " + CHANGED.substring(1), e);
+            }
+        } else {
+            paths = Arrays.asList(CHANGED.split(","));
+        }
+        return paths.stream()
+                .map(path -> path.trim().replace('\\', '/').replaceFirst("^\\./", "").replaceFirst("^/", ""))
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Whether a recorded source path and a changed path name the same file. The change may be given
+     * relative to the repository root and the coverage relative to the dev server root, so one only has
+     * to end with the other at a directory boundary.
+     */
+    private static boolean samePath(String covered, String changed) {
+        return covered.equals(changed) || covered.endsWith("/" + changed) || changed.endsWith("/" + covered);
+    }
+}
@@ -0,0 +1,241 @@
+package com.tinyflix.tests;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.xml.XmlTest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which test methods this JVM runs and in what order, and records how long each one took for
+ * the next run.
+ *
+ * With -Dtinyflix.shard=K/N the methods of every {@code <test>} block are split into N shards of about
+ * equal expected duration, using the durations in {@link TimingStore}, and only shard K (1-based) runs.
+ * Each shard writes its results to target/perf/shard-K-of-N.csv; {@link ShardReport} merges them.
+ *
+ * With -Dtinyflix.changed the methods are first narrowed to those {@link TestImpact} finds affected
+ * by the changed files, so every shard splits the same selection.
+ *
+ * The methods that run are started longest first, so a slow method does not start last on one worker
+ * while the others sit idle; -Dtinyflix.schedule=suite keeps the suite file's order instead. The
+ * predicted and actual makespan of every {@code <test>} block are printed and written to
+ * target/perf/schedule.csv.
+ */
+public class TestScheduler implements IMethodInterceptor, ITestListener, ISuiteListener {
+
+    private static final String SHARD = System.getProperty("tinyflix.shard");
+    private static final boolean LONGEST_FIRST =
+            !"suite".equalsIgnoreCase(System.getProperty("tinyflix.schedule", "longest-first"));
+
+    private static final TimingStore TIMINGS = TimingStore.load();
+    // Time each method took in this run, summed over data provider invocations
+    private static final Map<String, Long> durations = new ConcurrentHashMap<>();
+    private static final Map<String, Double> predictions = new ConcurrentHashMap<>();
+    // Predicted makespan per <test> block, as scheduled and in suite file order
+    private static final Map<String, long[]> makespans = new ConcurrentHashMap<>();
+    private static final AtomicLong predictedMs = new AtomicLong();
+    private static final AtomicLong suiteStart = new AtomicLong();
+
+    // Longest expected duration first; ties by name so the order is the same on every run and machine
+    private static final Comparator<IMethodInstance> LONGEST_FIRST_ORDER =
+            Comparator.comparingDouble((IMethodInstance method) -> -TIMINGS.estimate(key(method.getMethod())))
+                    .thenComparing(method -> key(method.getMethod()));
+
+    /**
+     * The name a method is known by in the timing store, e.g. "CommentTests.testAddComment".
+     */
+    static String key(ITestNGMethod method) {
+        return method.getRealClass().getSimpleName() + "." + method.getMethodName();
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        List<IMethodInstance> impacted = TestImpact.isEnabled() ? TestImpact.select(methods, context.getName()) : methods;
+        List<IMethodInstance> selected = impacted;
+        if (SHARD != null && !SHARD.trim().isEmpty()) {
+            int[] shard = parseShard(SHARD);
+            List<List<IMethodInstance>> bins = pack(impacted, shard[1]);
+            // Keep the suite file's order within the shard
+            selected = new ArrayList<>(impacted);
+            selected.retainAll(bins.get(shard[0] - 1));
+            System.out.println(String.format(Locale.ROOT, "[shard %d/%d] %s: %d of %d methods (all shards: %s s of work)",
+                    shard[0], shard[1], context.getName(), selected.size(), impacted.size(),
+                    bins.stream().map(bin -> String.format(Locale.ROOT, "%.1f", load(bin) / 1000)).collect(Collectors.joining("/"))));
+        }
+        for (IMethodInstance method : selected) {
+            predictions.put(key(method.getMethod()), TIMINGS.estimate(key(method.getMethod())));
+        }
+
+        List<IMethodInstance> scheduled = new ArrayList<>(selected);
+        if (LONGEST_FIRST) {
+            scheduled.sort(LONGEST_FIRST_ORDER);
+        }
+        int workers = workers(context);
+        long predicted = Math.round(makespan(scheduled, workers));
+        makespans.put(context.getName(), new long[]{predicted, Math.round(makespan(selected, workers))});
+        predictedMs.addAndGet(predicted);
+        return scheduled;
+    }
+
+    /**
+     * How many methods of the block run at once.
+     */
+    private static int workers(ITestContext context) {
+        XmlTest test = context.getCurrentXmlTest();
+        return test.getParallel() != null && test.getParallel().isParallel() ? Math.max(1, test.getThreadCount()) : 1;
+    }
+
+    /**
+     * Expected wall time of starting {@code methods} in order on {@code workers} threads, each method
+     * going to the first worker that is free.
+     */
+    static double makespan(List<IMethodInstance> methods, int workers) {
+        PriorityQueue<Double> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < workers; i++) {
+            freeAt.add(0.0);
+        }
+        double makespan = 0;
+        for (IMethodInstance method : methods) {
+            double finish = freeAt.poll() + TIMINGS.estimate(key(method.getMethod()));
+            freeAt.add(finish);
+            makespan = Math.max(makespan, finish);
+        }
+        return makespan;
+    }
+
+    /**
+     * Splits {@code methods} into {@code count} bins of about equal expected duration: longest processing
+     * time first, each method going to the least loaded bin. Ties are broken by name and bin number, so
+     * every shard computes the same split from the same timings.
+     */
+    static List<List<IMethodInstance>> pack(List<IMethodInstance> methods, int count) {
+        List<IMethodInstance> longestFirst = new ArrayList<>(methods);
+        longestFirst.sort(LONGEST_FIRST_ORDER);
+
+        List<List<IMethodInstance>> bins = new ArrayList<>();
+        double[] loads = new double[count];
+        for (int i = 0; i < count; i++) {
+            bins.add(new ArrayList<>());
+        }
+        for (IMethodInstance method : longestFirst) {
+            int lightest = 0;
+            for (int i = 1; i < count; i++) {
+                if (loads[i] < loads[lightest]) {
+                    lightest = i;
+                }
+            }
+            bins.get(lightest).add(method);
+            loads[lightest] += TIMINGS.estimate(key(method.getMethod()));
+        }
+        return bins;
+    }
+
+    private static double load(List<IMethodInstance> bin) {
+        return bin.stream().mapToDouble(method -> TIMINGS.estimate(key(method.getMethod()))).sum();
+    }
+
+    /**
+     * Parses "K/N" into {K, N}.
+     */
+    static int[] parseShard(String shard) {
+        String[] parts = shard.trim().split("/");
+        try {
+            int index = Integer.parseInt(parts[0].trim());
+            int count = Integer.parseInt(parts[1].trim());
+            if (parts.length == 2 && count >= 1 && index >= 1 && index <= count) {
+                return new int[]{index, count};
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("-Dtinyflix.shard must be K/N with 1 <= K <= N, e.g. 2/4, not '" + shard + "'");
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        suiteStart.set(System.currentTimeMillis());
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result, "passed");
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result, "failed");
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        record(result, "failed");
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        record(result, "skipped");
+    }
+
+    private void record(ITestResult result, String status) {
+        String test = key(result.getMethod());
+        long ms = result.getEndMillis() - result.getStartMillis();
+        // A skip before the method started says nothing about how long it takes
+        if (!"skipped".equals(status) || ms > 0) {
+            durations.merge(test, ms, Long::sum);
+        }
+        if (SHARD != null && !SHARD.trim().isEmpty()) {
+            PerfLog.append(shardFile(), "test,status,duration_ms,predicted_ms",
+                    Arrays.asList(test, status, ms, predictions.get(test)));
+        }
+    }
+
+    @Override
+    public void onFinish(ITestContext context) {
+        long[] predicted = makespans.get(context.getName());
+        if (predicted == null) {
+            return;
+        }
+        long actualMs = context.getEndDate().getTime() - context.getStartDate().getTime();
+        int workers = workers(context);
+        System.out.println(String.format(Locale.ROOT, "[schedule] %s: %d workers, %s makespan predicted %.1f s "
+                        + "(suite order %.1f s), took %.1f s",
+                context.getName(), workers, LONGEST_FIRST ? "longest-first" : "suite order",
+                predicted[0] / 1000.0, predicted[1] / 1000.0, actualMs / 1000.0));
+        PerfLog.append("schedule.csv", "test_block,workers,order,predicted_ms,suite_order_predicted_ms,actual_ms",
+                Arrays.asList(context.getName(), workers, LONGEST_FIRST ? "longest-first" : "suite",
+                        predicted[0], predicted[1], actualMs));
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        TIMINGS.save(durations);
+        if (SHARD != null && !SHARD.trim().isEmpty()) {
+            int[] shard = parseShard(SHARD);
+            long wallMs = System.currentTimeMillis() - suiteStart.get();
+            PerfLog.append("shards.csv", "shard,shards,predicted_ms,wall_ms",
+                    Arrays.asList(shard[0], shard[1], predictedMs.get(), wallMs));
+            System.out.println(String.format(Locale.ROOT, "[shard %d/%d] predicted %.1f s, took %.1f s",
+                    shard[0], shard[1], predictedMs.get() / 1000.0, wallMs / 1000.0));
+        }
+    }
+
+    private static String shardFile() {
+        int[] shard = parseShard(SHARD);
+        return "shard-" + shard[0] + "-of-" + shard[1] + ".csv";
+    }
+}
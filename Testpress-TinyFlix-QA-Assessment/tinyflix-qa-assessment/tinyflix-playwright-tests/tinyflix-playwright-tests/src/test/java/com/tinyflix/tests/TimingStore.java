@@ -0,0 +1,151 @@
+package com.tinyflix.tests;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Durations of test methods from earlier runs, in milliseconds, kept in .tinyflix/timings.properties
+ * (override with -Dtinyflix.timings.file) so they survive mvn clean. Every run adds its durations to
+ * the history of each method it ran, which keeps the latest -Dtinyflix.timings.history runs (default
+ * 10), and a method is expected to take its median, so one slow outlier does not reshuffle the schedule.
+ *
+ * Shards on different machines must see the same file to split the suite the same way, so CI should
+ * restore it from a shared cache before the run and save it afterwards.
+ */
+final class TimingStore {
+
+    private static final int HISTORY = Integer.getInteger("tinyflix.timings.history", 10);
+    // Estimate for a method that has never run, when nothing else is known
+    private static final double DEFAULT_ESTIMATE_MS = 10_000;
+
+    private final Path file;
+    // Durations per method, oldest first
+    private final Map<String, List<Long>> history;
+
+    private TimingStore(Path file, Map<String, List<Long>> history) {
+        this.file = file;
+        this.history = history;
+    }
+
+    static TimingStore load() {
+        Path file = Paths.get(System.getProperty("tinyflix.timings.file", ".tinyflix/timings.properties"));
+        return new TimingStore(file, new ConcurrentHashMap<>(read(file)));
+    }
+
+    Path file() {
+        return file;
+    }
+
+    boolean isKnown(String test) {
+        return history.containsKey(test);
+    }
+
+    /**
+     * Expected duration of {@code test}; a method without history is assumed to take as long as the
+     * median known method.
+     */
+    double estimate(String test) {
+        List<Long> known = history.get(test);
+        if (known != null) {
+            return median(known);
+        }
+        if (history.isEmpty()) {
+            return DEFAULT_ESTIMATE_MS;
+        }
+        List<Double> all = new ArrayList<>();
+        history.values().forEach(durations -> all.add(median(durations)));
+        Collections.sort(all);
+        return all.get(all.size() / 2);
+    }
+
+    private static double median(List<Long> durations) {
+        List<Long> sorted = new ArrayList<>(durations);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2.0;
+    }
+
+    /**
+     * Adds this run's durations to the file. The file is re-read under a lock, so shards running
+     * side by side on one machine only update the methods they ran.
+     */
+    void save(Map<String, Long> durations) {
+        if (durations.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+            try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    Map<String, List<Long>> current = read(file);
+                    durations.forEach((test, ms) -> {
+                        List<Long> runs = current.computeIfAbsent(test, key -> new ArrayList<>());
+                        runs.add(ms);
+                        if (runs.size() > HISTORY) {
+                            runs.subList(0, runs.size() - HISTORY).clear();
+                        }
+                    });
+
+                    Properties properties = new Properties();
+                    current.forEach((test, runs) -> properties.setProperty(test,
+                            runs.stream().map(String::valueOf).collect(Collectors.joining(","))));
+                    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                    try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                        properties.store(writer, "Test method durations in ms over the latest runs, oldest first");
+                    }
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    history.putAll(current);
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save test timings to " + file, e);
+        }
+    }
+
+    private static Map<String, List<Long>> read(Path file) {
+        Map<String, List<Long>> history = new HashMap<>();
+        if (!Files.exists(file)) {
+            return history;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read test timings from " + file, e);
+        }
+        for (String test : properties.stringPropertyNames()) {
+            try {
+                List<Long> runs = new ArrayList<>();
+                for (String ms : properties.getProperty(test).split(",")) {
+                    runs.add(Math.round(Double.parseDouble(ms.trim())));
+                }
+                history.put(test, runs);
+            } catch (NumberFormatException e) {
+                // A hand-edited entry; the method counts as unknown
+            }
+        }
+        return history;
+    }
+}
@@ -0,0 +1,115 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Snapshot of one video card in the list. {@link #snapshotAll(Page)} reads every card in a single
+ * driver round trip, however many cards there are.
+ */
+public final class VideoCard {
+
+    private static final String SNAPSHOT_SCRIPT = "cards => cards.map(card => {\n" +
+            "  const text = selector => {\n" +
+            "    const element = card.querySelector(selector);\n" +
+            "    return element ? element.textContent.trim() : null;\n" +
+            "  };\n" +
+            "  const metas = Array.from(card.querySelectorAll('.video-meta span')).map(span => span.textContent.trim());\n" +
+            "  const rating = metas.find(meta => meta.includes('⭐'));\n" +
+            "  return {\n" +
+            "    title: text('h3'),\n" +
+            "    description: text('.video-description'),\n" +
+            "    views: metas.find(meta => meta.includes('views')) || null,\n" +
+            "    rating: rating ? parseFloat(rating.replace('⭐', '')) : null,\n" +
+            "    duration: text('.duration'),\n" +
+            "    tags: Array.from(card.querySelectorAll('.tag')).map(tag => tag.textContent.trim())\n" +
+            "  };\n" +
+            "})";
+
+    private final String title;
+    private final String description;
+    private final String views;
+    private final Double rating;
+    private final String duration;
+    private final List<String> tags;
+
+    private VideoCard(String title, String description, String views, Double rating, String duration, List<String> tags) {
+        this.title = title;
+        this.description = description;
+        this.views = views;
+        this.rating = rating;
+        this.duration = duration;
+        this.tags = Collections.unmodifiableList(tags);
+    }
+
+    /**
+     * Reads every {@code .video-card} on the page, in display order.
+     */
+    public static List<VideoCard> snapshotAll(Page page) {
+        List<VideoCard> cards = new ArrayList<>();
+        for (Object entry : (List<?>) page.locator(".video-card").evaluateAll(SNAPSHOT_SCRIPT)) {
+            Map<?, ?> card = (Map<?, ?>) entry;
+            List<String> tags = new ArrayList<>();
+            for (Object tag : (List<?>) card.get("tags")) {
+                tags.add((String) tag);
+            }
+            Object rating = card.get("rating");
+            cards.add(new VideoCard((String) card.get("title"), (String) card.get("description"), (String) card.get("views"),
+                    rating instanceof Number ? ((Number) rating).doubleValue() : null, (String) card.get("duration"), tags));
+        }
+        return cards;
+    }
+
+    public String title() {
+        return title;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    /**
+     * The view count as displayed, e.g. "1.2K views", or null if the card shows none.
+     */
+    public String views() {
+        return views;
+    }
+
+    /**
+     * The star rating, or null if the card shows none.
+     */
+    public Double rating() {
+        return rating;
+    }
+
+    public String duration() {
+        return duration;
+    }
+
+    public List<String> tags() {
+        return tags;
+    }
+
+    /**
+     * Whether the title, description or a tag contains {@code term}, ignoring case, as a search would
+     * match the card.
+     */
+    public boolean mentions(String term) {
+        String lower = term.toLowerCase(Locale.ROOT);
+        return contains(title, lower) || contains(description, lower)
+                || tags.stream().anyMatch(tag -> contains(tag, lower));
+    }
+
+    private static boolean contains(String text, String lowerTerm) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(lowerTerm);
+    }
+
+    @Override
+    public String toString() {
+        return "VideoCard{title=" + title + ", rating=" + rating + ", views=" + views + ", duration=" + duration + "}";
+    }
+}
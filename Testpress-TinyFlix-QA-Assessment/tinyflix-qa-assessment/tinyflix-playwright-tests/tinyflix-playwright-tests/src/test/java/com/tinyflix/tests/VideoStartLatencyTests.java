@@ -0,0 +1,49 @@
+package com.tinyflix.tests;
+
+import org.testng.annotations.*;
+import java.util.Map;
+import static org.testng.Assert.*;
+
+public class VideoStartLatencyTests extends BaseTest {
+
+    private static final int ITERATIONS = Integer.getInteger("tinyflix.bench.iterations", 20);
+
+    // Targets from performance_analysis.md
+    private static final double VIDEO_START_TARGET_MS = 500;
+    private static final double FIRST_FRAME_TARGET_MS = 1000;
+
+    @Test(description = "Video start time and time to first frame should meet the performance targets")
+    public void testVideoStartLatency() {
+        LatencyStats clickToLoadedData = new LatencyStats("video-start", "click-to-loadeddata");
+        LatencyStats clickToPlaying = new LatencyStats("video-start", "click-to-playing");
+        LatencyStats clickToFirstFrame = new LatencyStats("video-start", "click-to-first-frame");
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            // openVideo() opens every run in a new context, so the video is never already in the HTTP cache
+            openVideo("React Basics");
+            VideoStartProbe.install(page());
+
+            page().locator("button[aria-label='Play']").click();
+            Map<String, Double> timings = VideoStartProbe.await(page(), 10_000);
+
+            clickToPlaying.add(timings.get("playing"));
+            if (timings.containsKey("loadeddata")) {
+                clickToLoadedData.add(timings.get("loadeddata"));
+            }
+            if (timings.containsKey("firstFrame")) {
+                clickToFirstFrame.add(timings.get("firstFrame"));
+            }
+        }
+
+        clickToLoadedData.report("");
+        clickToPlaying.report("");
+        clickToFirstFrame.report("");
+
+        if (budgetsApply()) {
+            assertTrue(clickToPlaying.percentile(95) <= VIDEO_START_TARGET_MS,
+                    "Video start time p95 should be under " + VIDEO_START_TARGET_MS + " ms: " + clickToPlaying.summary());
+            assertTrue(clickToFirstFrame.count() == 0 || clickToFirstFrame.percentile(95) <= FIRST_FRAME_TARGET_MS,
+                    "Time to first frame p95 should be under " + FIRST_FRAME_TARGET_MS + " ms: " + clickToFirstFrame.summary());
+        }
+    }
+}
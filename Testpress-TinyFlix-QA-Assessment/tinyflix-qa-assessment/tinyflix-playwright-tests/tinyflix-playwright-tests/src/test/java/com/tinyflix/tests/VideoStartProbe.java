@@ -0,0 +1,75 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timestamps the start of playback on the page's {@code <video>} element: the Play click, the
+ * {@code loadeddata} and {@code playing} events, and the first presented frame reported by
+ * {@code requestVideoFrameCallback}. All timings come back in milliseconds after the click.
+ */
+final class VideoStartProbe {
+
+    private static final String INSTALL_SCRIPT = "() => {\n" +
+            "  const video = document.querySelector('video');\n" +
+            "  const probe = window.__tinyflixVideoStart = {\n" +
+            "    click: null, loadeddata: null, playing: null, firstFrame: null,\n" +
+            "    loadedBeforeClick: video.readyState >= 2\n" +
+            "  };\n" +
+            "  document.addEventListener('click', event => {\n" +
+            "    if (probe.click !== null || !event.target.closest(\"button[aria-label='Play']\")) return;\n" +
+            "    probe.click = event.timeStamp;\n" +
+            "    if (typeof video.requestVideoFrameCallback === 'function') {\n" +
+            "      video.requestVideoFrameCallback((now, metadata) => {\n" +
+            "        probe.firstFrame = metadata.presentationTime || now;\n" +
+            "      });\n" +
+            "    }\n" +
+            "  }, true);\n" +
+            "  video.addEventListener('loadeddata', () => {\n" +
+            "    if (probe.loadeddata === null) probe.loadeddata = performance.now();\n" +
+            "  });\n" +
+            "  video.addEventListener('playing', () => {\n" +
+            "    if (probe.playing === null) probe.playing = performance.now();\n" +
+            "  });\n" +
+            "}";
+
+    private static final String COMPLETE_CONDITION = "() => {\n" +
+            "  const probe = window.__tinyflixVideoStart;\n" +
+            "  return probe && probe.click !== null && probe.playing !== null &&\n" +
+            "      (probe.firstFrame !== null || typeof HTMLVideoElement.prototype.requestVideoFrameCallback !== 'function');\n" +
+            "}";
+
+    private VideoStartProbe() {
+    }
+
+    /**
+     * Installs the probe on the video player; call after selecting a video and before clicking Play.
+     */
+    static void install(Page page) {
+        page.waitForSelector("video");
+        page.evaluate(INSTALL_SCRIPT);
+    }
+
+    /**
+     * Waits for playback to start and returns the timings after the Play click. "loadeddata" is 0 when
+     * the video had already loaded its first frame before the click.
+     */
+    static Map<String, Double> await(Page page, double timeoutMs) {
+        page.waitForFunction(COMPLETE_CONDITION, null, new Page.WaitForFunctionOptions().setTimeout(timeoutMs));
+        Map<?, ?> probe = (Map<?, ?>) page.evaluate("() => window.__tinyflixVideoStart");
+        double click = ((Number) probe.get("click")).doubleValue();
+
+        Map<String, Double> timings = new LinkedHashMap<>();
+        timings.put("playing", ((Number) probe.get("playing")).doubleValue() - click);
+        if (Boolean.TRUE.equals(probe.get("loadedBeforeClick"))) {
+            timings.put("loadeddata", 0.0);
+        } else if (probe.get("loadeddata") instanceof Number) {
+            timings.put("loadeddata", Math.max(0, ((Number) probe.get("loadeddata")).doubleValue() - click));
+        }
+        if (probe.get("firstFrame") instanceof Number) {
+            timings.put("firstFrame", ((Number) probe.get("firstFrame")).doubleValue() - click);
+        }
+        return timings;
+    }
+}
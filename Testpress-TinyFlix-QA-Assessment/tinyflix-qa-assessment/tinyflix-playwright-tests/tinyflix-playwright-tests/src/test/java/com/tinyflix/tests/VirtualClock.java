@@ -0,0 +1,245 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Test-controlled time for the page: Date, performance.now(), timers, animation frames and the
+ * playback position of media elements only move when the test advances them.
+ *
+ * Tests get one from BaseTest.useVirtualClock(). Playing a video then means clicking Play and calling
+ * {@link #tick}, which runs timers and frames in order and fires timeupdate every 250 ms like a real
+ * player, without any real waiting; {@link #jump} skips hours at once. A video can be given any
+ * duration with {@link #setMediaDuration}, so long-video cases no longer need long videos.
+ *
+ * The clock replaces the page's own timers and animation frames, so a wait that polls in the page
+ * with them would never finish. The real setTimeout and clearTimeout are kept on
+ * window.__tinyflixRealTimers for the waits in BaseTest; waitForVideoTime() checks once instead of
+ * polling, since playback only moves on a tick. Media elements keep loading for real, but their
+ * playback position is virtual: play() and pause() only flip the virtual state.
+ * Start the clock at a different instant with -Dtinyflix.clock.start (default 2024-01-01T12:00:00Z).
+ */
+public final class VirtualClock {
+
+    static final long START_EPOCH_MS =
+            Instant.parse(System.getProperty("tinyflix.clock.start", "2024-01-01T12:00:00Z")).toEpochMilli();
+
+    // Longest a tick may run timers for before it is treated as a timer loop
+    private static final int MAX_TIMERS_PER_TICK = 100_000;
+
+    /**
+     * Installs the clock; safe to run again in a document that already has it.
+     */
+    static final String INSTALL_SCRIPT = "(() => {\n" +
+            "  if (window.__tinyflixClock) return;\n" +
+            "  const START = " + START_EPOCH_MS + ";\n" +
+            "  const FRAME_MS = 16;\n" +
+            "  const TIMEUPDATE_MS = 250;\n" +
+            "  const RealDate = Date;\n" +
+            "  const perfStart = performance.now();\n" +
+            "  let elapsed = 0;\n" +
+            "  let nextId = 1;\n" +
+            "  const timers = new Map();\n" +
+            "  // Kept for the test's own waits, which need real time while the page's timers are virtual\n" +
+            "  window.__tinyflixRealTimers = { setTimeout: window.setTimeout.bind(window), clearTimeout: window.clearTimeout.bind(window) };\n" +
+            "  const schedule = (callback, delay, args, repeat) => {\n" +
+            "    const id = nextId++;\n" +
+            "    const ms = Math.max(repeat ? 1 : 0, Number(delay) || 0);\n" +
+            "    timers.set(id, { id: id, callback: callback, at: elapsed + ms, args: args, every: repeat ? ms : null });\n" +
+            "    return id;\n" +
+            "  };\n" +
+            "  window.setTimeout = (callback, delay, ...args) => schedule(callback, delay, args, false);\n" +
+            "  window.setInterval = (callback, delay, ...args) => schedule(callback, delay, args, true);\n" +
+            "  window.clearTimeout = window.clearInterval = id => { timers.delete(id); };\n" +
+            "  window.requestAnimationFrame = callback => {\n" +
+            "    const id = nextId++;\n" +
+            "    const at = (Math.floor(elapsed / FRAME_MS) + 1) * FRAME_MS;\n" +
+            "    timers.set(id, { id: id, callback: () => callback(perfStart + at), at: at, args: [], every: null });\n" +
+            "    return id;\n" +
+            "  };\n" +
+            "  window.cancelAnimationFrame = id => { timers.delete(id); };\n" +
+            "  performance.now = () => perfStart + elapsed;\n" +
+            "  function VirtualDate(...args) {\n" +
+            "    if (!(this instanceof VirtualDate)) return new RealDate(START + elapsed).toString();\n" +
+            "    return args.length === 0 ? new RealDate(START + elapsed) : new RealDate(...args);\n" +
+            "  }\n" +
+            "  VirtualDate.prototype = RealDate.prototype;\n" +
+            "  VirtualDate.now = () => START + elapsed;\n" +
+            "  VirtualDate.parse = RealDate.parse;\n" +
+            "  VirtualDate.UTC = RealDate.UTC;\n" +
+            "  window.Date = VirtualDate;\n" +
+            "\n" +
+            "  const media = new Set();\n" +
+            "  const states = new WeakMap();\n" +
+            "  const proto = HTMLMediaElement.prototype;\n" +
+            "  const real = name => Object.getOwnPropertyDescriptor(proto, name);\n" +
+            "  const realCurrentTime = real('currentTime');\n" +
+            "  const realPaused = real('paused');\n" +
+            "  const realDuration = real('duration');\n" +
+            "  const realPause = proto.pause;\n" +
+            "  let durationOverride = null;\n" +
+            "  const fire = (element, type) => Promise.resolve().then(() => element.dispatchEvent(new Event(type)));\n" +
+            "  const state = element => {\n" +
+            "    let current = states.get(element);\n" +
+            "    if (!current) {\n" +
+            "      // Take over from wherever the element already is, and stop it moving on its own\n" +
+            "      current = { time: realCurrentTime.get.call(element), paused: realPaused.get.call(element), ended: false, sinceUpdate: 0 };\n" +
+            "      if (!current.paused) realPause.call(element);\n" +
+            "      states.set(element, current);\n" +
+            "      media.add(element);\n" +
+            "    }\n" +
+            "    return current;\n" +
+            "  };\n" +
+            "  const duration = element => durationOverride !== null ? durationOverride : realDuration.get.call(element);\n" +
+            "  Object.defineProperty(proto, 'currentTime', { configurable: true,\n" +
+            "    get() { return state(this).time; },\n" +
+            "    set(seconds) {\n" +
+            "      const current = state(this);\n" +
+            "      const end = duration(this);\n" +
+            "      current.time = Math.max(0, isFinite(end) ? Math.min(Number(seconds), end) : Number(seconds));\n" +
+            "      current.ended = false;\n" +
+            "      fire(this, 'seeking');\n" +
+            "      fire(this, 'timeupdate');\n" +
+            "      fire(this, 'seeked');\n" +
+            "    } });\n" +
+            "  Object.defineProperty(proto, 'paused', { configurable: true, get() { return state(this).paused; } });\n" +
+            "  Object.defineProperty(proto, 'ended', { configurable: true, get() { return state(this).ended; } });\n" +
+            "  Object.defineProperty(proto, 'duration', { configurable: true, get() { return duration(this); } });\n" +
+            "  proto.play = function () {\n" +
+            "    const current = state(this);\n" +
+            "    if (current.paused) {\n" +
+            "      if (current.ended) { current.time = 0; current.ended = false; }\n" +
+            "      current.paused = false;\n" +
+            "      fire(this, 'play');\n" +
+            "      fire(this, 'playing');\n" +
+            "    }\n" +
+            "    return Promise.resolve();\n" +
+            "  };\n" +
+            "  proto.pause = function () {\n" +
+            "    const current = state(this);\n" +
+            "    if (!current.paused) {\n" +
+            "      current.paused = true;\n" +
+            "      fire(this, 'timeupdate');\n" +
+            "      fire(this, 'pause');\n" +
+            "    }\n" +
+            "  };\n" +
+            "  // Moves every playing element on by ms; timeupdate fires every 250 ms, or once when quiet\n" +
+            "  const advanceMedia = (ms, quiet) => {\n" +
+            "    media.forEach(element => {\n" +
+            "      const current = state(element);\n" +
+            "      if (current.paused) return;\n" +
+            "      current.time += ms / 1000 * element.playbackRate;\n" +
+            "      current.sinceUpdate += ms;\n" +
+            "      const end = duration(element);\n" +
+            "      if (isFinite(end) && current.time >= end) {\n" +
+            "        current.time = end;\n" +
+            "        current.paused = true;\n" +
+            "        current.ended = true;\n" +
+            "        fire(element, 'timeupdate');\n" +
+            "        fire(element, 'pause');\n" +
+            "        fire(element, 'ended');\n" +
+            "      } else if (!quiet && current.sinceUpdate >= TIMEUPDATE_MS) {\n" +
+            "        current.sinceUpdate = 0;\n" +
+            "        fire(element, 'timeupdate');\n" +
+            "      }\n" +
+            "    });\n" +
+            "  };\n" +
+            "  const nextDue = until => {\n" +
+            "    let next = null;\n" +
+            "    timers.forEach(timer => {\n" +
+            "      if (timer.at <= until && (next === null || timer.at < next.at || (timer.at === next.at && timer.id < next.id))) next = timer;\n" +
+            "    });\n" +
+            "    return next;\n" +
+            "  };\n" +
+            "  const run = timer => {\n" +
+            "    if (timer.every !== null) timer.at += timer.every; else timers.delete(timer.id);\n" +
+            "    if (typeof timer.callback === 'function') timer.callback(...timer.args); else (0, eval)(String(timer.callback));\n" +
+            "  };\n" +
+            "  // Resolves after the tasks the fired events scheduled, e.g. React's re-render, have run\n" +
+            "  const settle = () => new Promise(resolve => {\n" +
+            "    const channel = new MessageChannel();\n" +
+            "    channel.port1.onmessage = () => { channel.port1.close(); resolve(); };\n" +
+            "    Promise.resolve().then(() => channel.port2.postMessage(null));\n" +
+            "  });\n" +
+            "  window.__tinyflixClock = {\n" +
+            "    now: () => START + elapsed,\n" +
+            "    tick: async (ms, maxTimers) => {\n" +
+            "      const until = elapsed + ms;\n" +
+            "      let fired = 0;\n" +
+            "      while (elapsed < until || nextDue(until)) {\n" +
+            "        const timer = nextDue(until);\n" +
+            "        const stepTo = Math.max(elapsed, Math.min(until, timer ? timer.at : until, elapsed + TIMEUPDATE_MS));\n" +
+            "        advanceMedia(stepTo - elapsed, false);\n" +
+            "        elapsed = stepTo;\n" +
+            "        if (timer && timer.at <= elapsed) {\n" +
+            "          if (++fired > maxTimers) throw new Error('More than ' + maxTimers + ' timers in one tick; is a timer rescheduling itself?');\n" +
+            "          run(timer);\n" +
+            "        }\n" +
+            "        // Let the events and promise callbacks of this step run before the next one\n" +
+            "        await Promise.resolve();\n" +
+            "      }\n" +
+            "      await settle();\n" +
+            "    },\n" +
+            "    jump: async ms => {\n" +
+            "      const until = elapsed + ms;\n" +
+            "      advanceMedia(ms, true);\n" +
+            "      elapsed = until;\n" +
+            "      media.forEach(element => { if (!state(element).paused) fire(element, 'timeupdate'); });\n" +
+            "      // Every timer that came due fires once, however many times it would have\n" +
+            "      Array.from(timers.values()).filter(timer => timer.at <= until)\n" +
+            "          .sort((a, b) => a.at - b.at || a.id - b.id)\n" +
+            "          .forEach(timer => {\n" +
+            "            if (timer.every !== null) timer.at = until;\n" +
+            "            run(timer);\n" +
+            "          });\n" +
+            "      await settle();\n" +
+            "    },\n" +
+            "    setMediaDuration: seconds => {\n" +
+            "      durationOverride = seconds;\n" +
+            "      document.querySelectorAll('video, audio').forEach(element => {\n" +
+            "        state(element);\n" +
+            "        fire(element, 'durationchange');\n" +
+            "        fire(element, 'loadedmetadata');\n" +
+            "      });\n" +
+            "    }\n" +
+            "  };\n" +
+            "})();";
+
+    private final Supplier<Page> page;
+
+    VirtualClock(Supplier<Page> page) {
+        this.page = page;
+    }
+
+    /**
+     * Advances time by {@code ms}, running every timer and animation frame that comes due in order
+     * and moving playing media along with it.
+     */
+    public void tick(long ms) {
+        page.get().evaluate("([ms, maxTimers]) => window.__tinyflixClock.tick(ms, maxTimers)",
+                java.util.Arrays.asList(ms, MAX_TIMERS_PER_TICK));
+    }
+
+    /**
+     * Skips {@code ms} ahead at once: playing media moves to where it would be, and each timer that
+     * came due fires once. For skipping hours, where {@link #tick} would run every timer in between.
+     */
+    public void jump(long ms) {
+        page.get().evaluate("ms => window.__tinyflixClock.jump(ms)", ms);
+    }
+
+    /**
+     * The page's current time, as Date.now() returns it.
+     */
+    public long now() {
+        return ((Number) page.get().evaluate("() => window.__tinyflixClock.now()")).longValue();
+    }
+
+    /**
+     * Makes every media element in the page report {@code seconds} as its duration.
+     */
+    public void setMediaDuration(double seconds) {
+        page.get().evaluate("seconds => window.__tinyflixClock.setMediaDuration(seconds)", seconds);
+    }
+}
@@ -0,0 +1,122 @@
+package com.tinyflix.tests;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run-wide totals for the time tests spend waiting, split between the condition waits in
+ * {@link BaseTest} and the fixed {@code wait(int)} sleeps that are left.
+ *
+ * It also reports what replacing the fixed sleeps saved: for every test that ran, the sleeps it used
+ * to take are added to the removed budget and the time its condition waits actually took is set
+ * against it.
+ */
+public final class WaitStats {
+
+    // The fixed sleeps each test took on every run before they were replaced by condition waits. Sleeps
+    // that only ran in some runs, like the one in AccessibilityTests.testBookmarkKeyboardAccessibility
+    // when the bookmark list started empty, are left out rather than counted every time
+    private static final Map<String, Integer> REMOVED_SLEEPS_MS = new HashMap<>();
+
+    static {
+        REMOVED_SLEEPS_MS.put("AccessibilityTests.testVideoPlayerKeyboardAccessibility", 500);
+        REMOVED_SLEEPS_MS.put("BookmarkTests.testBookmarkNavigation", 3000);
+        REMOVED_SLEEPS_MS.put("CommentTests.testLikeComment", 500);
+        REMOVED_SLEEPS_MS.put("CommentTests.testReplyLikes", 500);
+        REMOVED_SLEEPS_MS.put("CommentTests.testReplyValidation", 500);
+        REMOVED_SLEEPS_MS.put("EdgeCaseTests.testManyBookmarks", 5 * 300);
+        REMOVED_SLEEPS_MS.put("EdgeCaseTests.testManyComments", 3 * 300);
+        REMOVED_SLEEPS_MS.put("ErrorHandlingTests.testInvalidVideoId", 500);
+        REMOVED_SLEEPS_MS.put("ErrorHandlingTests.testFormValidationErrors", 500);
+        REMOVED_SLEEPS_MS.put("ErrorHandlingTests.testServerErrors", 500);
+        for (String test : Arrays.asList("testSearchByTitle", "testSearchByDescription", "testSearchByTags",
+                "testFilterByRecent", "testFilterByPopular", "testSortByTitle", "testSortByDate",
+                "testSortByRating", "testNoResultsState")) {
+            REMOVED_SLEEPS_MS.put("SearchFilterTests." + test, 500);
+        }
+        REMOVED_SLEEPS_MS.put("VideoPlaybackTests.testVideoPlayPause", 1000);
+        REMOVED_SLEEPS_MS.put("VideoPlaybackTests.testVideoProgressBar", 2000);
+    }
+
+    private static final Map<String, Totals> conditionWaits = new ConcurrentHashMap<>();
+    private static final Totals fixedSleeps = new Totals();
+    private static final LongAdder testsWithRemovedSleeps = new LongAdder();
+    private static final LongAdder removedSleepMs = new LongAdder();
+    // Condition waits in those tests, i.e. what the removed sleeps now cost
+    private static final LongAdder replacementMs = new LongAdder();
+
+    private WaitStats() {
+    }
+
+    static void recordCondition(String test, String kind, long elapsedMs, boolean satisfied) {
+        Totals totals = conditionWaits.computeIfAbsent(kind, k -> new Totals());
+        totals.add(elapsedMs);
+        if (!satisfied) {
+            totals.timeouts.increment();
+        }
+        if (REMOVED_SLEEPS_MS.containsKey(test)) {
+            replacementMs.add(elapsedMs);
+        }
+    }
+
+    static void recordSleep(long elapsedMs) {
+        fixedSleeps.add(elapsedMs);
+    }
+
+    /**
+     * Counts the sleeps {@code test} no longer takes; call once per test run.
+     */
+    static void recordTestRun(String test) {
+        Integer removed = REMOVED_SLEEPS_MS.get(test);
+        if (removed != null) {
+            testsWithRemovedSleeps.increment();
+            removedSleepMs.add(removed);
+        }
+    }
+
+    /**
+     * Prints one line per wait kind and what this run saved over the removed fixed sleeps, which also
+     * goes to target/perf/waits.csv. A timed-out condition wait usually means a real failure or a
+     * budget that is too tight for the agent, so timeouts are listed separately.
+     */
+    public static void printSummary() {
+        if (conditionWaits.isEmpty() && fixedSleeps.calls.sum() == 0 && testsWithRemovedSleeps.sum() == 0) {
+            return;
+        }
+        long conditionMs = 0;
+        long conditionCalls = 0;
+        System.out.println("Wait summary:");
+        for (Map.Entry<String, Totals> entry : new TreeMap<>(conditionWaits).entrySet()) {
+            Totals totals = entry.getValue();
+            conditionMs += totals.elapsedMs.sum();
+            conditionCalls += totals.calls.sum();
+            System.out.println("  " + entry.getKey() + ": " + totals.calls.sum() + " waits, "
+                    + totals.elapsedMs.sum() + " ms total, " + totals.timeouts.sum() + " timed out");
+        }
+        System.out.println("  condition waits: " + conditionCalls + " waits, " + conditionMs + " ms total");
+        System.out.println("  fixed sleeps: " + fixedSleeps.calls.sum() + " sleeps, "
+                + fixedSleeps.elapsedMs.sum() + " ms total");
+        long removed = removedSleepMs.sum();
+        long replacement = replacementMs.sum();
+        System.out.println("  removed fixed sleeps: " + removed + " ms over " + testsWithRemovedSleeps.sum()
+                + " tests, replaced by " + replacement + " ms of condition waits, " + (removed - replacement) + " ms saved");
+        PerfLog.append("waits.csv", "tests,removed_sleep_ms,replacement_wait_ms,saved_ms,condition_waits,condition_wait_ms,fixed_sleep_ms",
+                Arrays.asList(testsWithRemovedSleeps.sum(), removed, replacement, removed - replacement,
+                        conditionCalls, conditionMs, fixedSleeps.elapsedMs.sum()));
+    }
+
+    private static final class Totals {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder elapsedMs = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        private void add(long ms) {
+            calls.increment();
+            elapsedMs.add(ms);
+        }
+    }
+}
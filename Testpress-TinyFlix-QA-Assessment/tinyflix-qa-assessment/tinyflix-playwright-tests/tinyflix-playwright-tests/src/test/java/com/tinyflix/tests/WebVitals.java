@@ -0,0 +1,110 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Core Web Vitals for the page under test, gathered by PerformanceObservers that BaseTest installs in
+ * every context before the first navigation.
+ *
+ * Budgets default to the targets in performance_analysis.md (LCP 2.5 s, FID 100 ms, CLS 0.1), plus
+ * Google's "good" thresholds for INP (200 ms) and TTFB (800 ms). Override one with e.g.
+ * -Dtinyflix.budget.lcp=4000.
+ */
+final class WebVitals {
+
+    // Metrics and their default budgets; times are in milliseconds, CLS is unitless
+    static final String[] METRICS = {"lcp", "cls", "inp", "fid", "ttfb"};
+    private static final double[] DEFAULT_BUDGETS = {2500, 0.1, 200, 100, 800};
+
+    static final String OBSERVER_SCRIPT = "(() => {\n" +
+            "  if (window.__tinyflixVitals) return;\n" +
+            "  const vitals = window.__tinyflixVitals = { lcp: null, cls: 0, inp: null, fid: null, ttfb: null };\n" +
+            "  const observe = (type, callback, options) => {\n" +
+            "    try {\n" +
+            "      new PerformanceObserver(list => list.getEntries().forEach(callback))\n" +
+            "          .observe(Object.assign({ type: type, buffered: true }, options));\n" +
+            "    } catch (e) {\n" +
+            "      // Entry type not supported by this browser\n" +
+            "    }\n" +
+            "  };\n" +
+            "  observe('largest-contentful-paint', entry => { vitals.lcp = entry.startTime; });\n" +
+            "  // CLS is the largest session window: shifts less than 1 s apart, at most 5 s in total\n" +
+            "  let session = 0, sessionStart = 0, sessionEnd = 0;\n" +
+            "  observe('layout-shift', entry => {\n" +
+            "    if (entry.hadRecentInput) return;\n" +
+            "    if (session > 0 && entry.startTime - sessionEnd < 1000 && entry.startTime - sessionStart < 5000) {\n" +
+            "      session += entry.value;\n" +
+            "    } else {\n" +
+            "      session = entry.value;\n" +
+            "      sessionStart = entry.startTime;\n" +
+            "    }\n" +
+            "    sessionEnd = entry.startTime;\n" +
+            "    vitals.cls = Math.max(vitals.cls, session);\n" +
+            "  });\n" +
+            "  // INP is the slowest interaction, ignoring one outlier for every 50 interactions\n" +
+            "  const interactions = {};\n" +
+            "  observe('event', entry => {\n" +
+            "    if (!entry.interactionId) return;\n" +
+            "    interactions[entry.interactionId] = Math.max(interactions[entry.interactionId] || 0, entry.duration);\n" +
+            "    const durations = Object.values(interactions).sort((a, b) => b - a);\n" +
+            "    vitals.inp = durations[Math.min(Math.floor(durations.length / 50), durations.length - 1)];\n" +
+            "  }, { durationThreshold: 16 });\n" +
+            "  observe('first-input', entry => { vitals.fid = entry.processingStart - entry.startTime; });\n" +
+            "  observe('navigation', entry => {\n" +
+            "    vitals.ttfb = Math.max(entry.responseStart - (entry.activationStart || 0), 0);\n" +
+            "  });\n" +
+            "})();";
+
+    private WebVitals() {
+    }
+
+    /**
+     * Returns the metrics observed so far, keyed by metric name. Empty if the page never navigated.
+     */
+    static Map<String, Double> collect(Page page) {
+        Map<String, Double> vitals = new LinkedHashMap<>();
+        Object observed = page.evaluate("() => window.__tinyflixVitals || null");
+        if (!(observed instanceof Map)) {
+            return vitals;
+        }
+        Map<?, ?> values = (Map<?, ?>) observed;
+        if (values.get("ttfb") == null && values.get("lcp") == null) {
+            return vitals;
+        }
+        for (String metric : METRICS) {
+            Object value = values.get(metric);
+            if (value instanceof Number) {
+                vitals.put(metric, ((Number) value).doubleValue());
+            }
+        }
+        return vitals;
+    }
+
+    static double budget(String metric) {
+        for (int i = 0; i < METRICS.length; i++) {
+            if (METRICS[i].equals(metric)) {
+                String override = System.getProperty("tinyflix.budget." + metric);
+                return override != null ? Double.parseDouble(override) : DEFAULT_BUDGETS[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown web vital: " + metric);
+    }
+
+    /**
+     * Describes every metric that is over its budget, e.g. "lcp 3120.000 > 2500.000".
+     */
+    static List<String> overBudget(Map<String, Double> vitals) {
+        List<String> violations = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : vitals.entrySet()) {
+            double budget = budget(entry.getKey());
+            if (entry.getValue() > budget) {
+                violations.add(String.format(java.util.Locale.ROOT, "%s %.3f > %.3f", entry.getKey(), entry.getValue(), budget));
+            }
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,62 @@
+package com.tinyflix.tests;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the Core Web Vitals of every test's page once the test method returns, while the page is still
+ * open, and records them in target/perf/web-vitals.csv and the TestNG report.
+ *
+ * A test that passed but left a metric over its budget is marked as failed, so app performance
+ * regressions show up in the same run as functional ones. Run with -Dtinyflix.budgets.enforce=false
+ * to record the metrics without failing tests.
+ */
+public class WebVitalsListener implements IInvokedMethodListener {
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult result) {
+        if (!method.isTestMethod() || !(result.getInstance() instanceof BaseTest)) {
+            return;
+        }
+        BaseTest test = (BaseTest) result.getInstance();
+        // A test that never opened a page has no vitals, and asking page() for one would create it
+        Page page = test.currentPage();
+        if (page == null || page.isClosed()) {
+            return;
+        }
+
+        Map<String, Double> vitals;
+        try {
+            vitals = WebVitals.collect(page);
+        } catch (PlaywrightException e) {
+            // The page crashed or is navigating; there is nothing reliable to record
+            return;
+        }
+        if (vitals.isEmpty()) {
+            return;
+        }
+
+        List<String> violations = WebVitals.overBudget(vitals);
+        List<Object> row = new ArrayList<>();
+        row.add(test.testName());
+        for (String metric : WebVitals.METRICS) {
+            row.add(vitals.get(metric));
+        }
+        row.add(String.join("; ", violations));
+        PerfLog.append("web-vitals.csv", "test,lcp_ms,cls,inp_ms,fid_ms,ttfb_ms,over_budget", row);
+        result.setAttribute("webVitals", vitals);
+        Reporter.log("Web vitals: " + vitals);
+
+        if (test.budgetsApply() && !violations.isEmpty() && result.getStatus() == ITestResult.SUCCESS) {
+            result.setStatus(ITestResult.FAILURE);
+            result.setThrowable(new AssertionError("Web vitals over budget: " + String.join(", ", violations)));
+        }
+    }
+}